@@ -0,0 +1,80 @@
+package io.manebot.plugin.audio.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares FastMath with java.lang.Math over a block of samples, as the filters call them.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FastMathBenchmark {
+    private static final int LENGTH = 1024;
+
+    private final float[] gains = new float[LENGTH], decibels = new float[LENGTH], out = new float[LENGTH];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1L);
+        for (int i = 0; i < LENGTH; i ++) {
+            gains[i] = (float) Math.pow(2D, (random.nextFloat() * 16f) - 8f);
+            decibels[i] = (random.nextFloat() * 96f) - 48f;
+        }
+    }
+
+    @Benchmark
+    public float[] log2() {
+        for (int i = 0; i < LENGTH; i ++) out[i] = FastMath.log2(gains[i]);
+        return out;
+    }
+
+    @Benchmark
+    public float[] mathLog2() {
+        for (int i = 0; i < LENGTH; i ++) out[i] = (float) (Math.log(gains[i]) / Math.log(2D));
+        return out;
+    }
+
+    @Benchmark
+    public float[] pow() {
+        for (int i = 0; i < LENGTH; i ++) out[i] = FastMath.pow(gains[i], 0.6f);
+        return out;
+    }
+
+    @Benchmark
+    public float[] mathPow() {
+        for (int i = 0; i < LENGTH; i ++) out[i] = (float) Math.pow(gains[i], 0.6f);
+        return out;
+    }
+
+    @Benchmark
+    public float[] dbToLinear() {
+        for (int i = 0; i < LENGTH; i ++) out[i] = FastMath.dbToLinear(decibels[i]);
+        return out;
+    }
+
+    @Benchmark
+    public float[] mathDbToLinear() {
+        for (int i = 0; i < LENGTH; i ++) out[i] = (float) Math.pow(10D, decibels[i] / 20D);
+        return out;
+    }
+
+    @Benchmark
+    public float[] linearToDb() {
+        for (int i = 0; i < LENGTH; i ++) out[i] = FastMath.linearToDb(gains[i]);
+        return out;
+    }
+
+    @Benchmark
+    public float[] mathLinearToDb() {
+        for (int i = 0; i < LENGTH; i ++) out[i] = (float) (20D * Math.log10(gains[i]));
+        return out;
+    }
+}
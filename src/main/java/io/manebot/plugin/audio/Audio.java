@@ -9,6 +9,7 @@ import io.manebot.event.*;
 import io.manebot.platform.Platform;
 import io.manebot.plugin.Plugin;
 import io.manebot.plugin.PluginReference;
+import io.manebot.plugin.audio.api.AudioConnection;
 import io.manebot.plugin.audio.api.AudioRegistration;
 import io.manebot.plugin.audio.api.DefaultAudioRegistration;
 
@@ -18,13 +19,14 @@ import io.manebot.plugin.audio.mixer.BufferedMixer;
 import io.manebot.plugin.audio.mixer.Mixer;
 import io.manebot.plugin.audio.mixer.filter.MultiChannelFilter;
 import io.manebot.plugin.audio.mixer.filter.MuxedMultiChannelFilter;
-import io.manebot.plugin.audio.mixer.filter.SoftFilter;
 import io.manebot.plugin.audio.mixer.filter.type.*;
 
 import io.manebot.plugin.audio.resample.FFmpegResampler;
 import io.manebot.plugin.audio.resample.ResamplerFactory;
+import io.manebot.plugin.audio.util.LoopTimer;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -34,8 +36,14 @@ public class Audio implements PluginReference {
     private final Map<Platform, AudioRegistration> registrationMap = new LinkedHashMap<>();
 
     private long bufferTime;
+    private long minimumBufferTime; // 0 for a fixed buffer
     private long loopDelay;
+    private LoopTimer.Mode loopTimerMode;
+    private AudioConnection.Scheduling scheduling;
+    private long jitterBufferTime;
+    private long quantumTime; // 0 to follow the sinks only
     private ResamplerFactory resamplerFactory;
+    private ForkJoinPool renderPool; // Null unless mixers read their channels in parallel
 
     Audio(Plugin plugin) {
         this.plugin = plugin;
@@ -49,9 +57,39 @@ public class Audio implements PluginReference {
 
         bufferTime = Integer.parseInt(future.getPlugin().getProperty("delay", "500"));
 
+        // Adaptive latency: the mixer buffer floats between minDelay and delay
+        minimumBufferTime = Boolean.parseBoolean(future.getPlugin().getProperty("adaptiveDelay", "false")) ?
+                Integer.parseInt(future.getPlugin().getProperty("minDelay", "40")) : 0L;
+
         loopDelay = Integer.parseInt(future.getPlugin().getProperty("loopDelay",
                 Integer.toString((int) bufferTime / 10)));
 
+        loopTimerMode = LoopTimer.Mode.valueOf(
+                future.getPlugin().getProperty("loopTimer", LoopTimer.Mode.HYBRID.name()).toUpperCase());
+
+        scheduling = AudioConnection.Scheduling.valueOf(
+                future.getPlugin().getProperty("scheduling", AudioConnection.Scheduling.PUSH.name()).toUpperCase());
+
+        jitterBufferTime = Integer.parseInt(future.getPlugin().getProperty("jitterBuffer", "20"));
+
+        // Render block, e.g. 10ms; mixers also follow their sinks' block sizes (e.g. Opus frames)
+        quantumTime = Integer.parseInt(future.getPlugin().getProperty("quantum", "0"));
+
+        // Parallel channel rendering, shared by all mixers; 0 to read channels on each mixer's own thread.  The pool
+        // outlives reloads, as mixers may too, unless the thread count changes; its idle workers exit by themselves.
+        int renderThreads = Math.max(0, Integer.parseInt(future.getPlugin().getProperty("renderThreads", "0")));
+        ForkJoinPool replaced = renderPool;
+        if (replaced == null ? renderThreads > 0 : replaced.getParallelism() != renderThreads) {
+            renderPool = renderThreads > 0 ? new ForkJoinPool(renderThreads) : null;
+
+            // Mixers that outlived the reload move over to the new pool (or back to their own thread)
+            for (Mixer mixer : getMixers())
+                if (mixer instanceof BufferedMixer)
+                    ((BufferedMixer) mixer).setRenderPool(renderPool);
+
+            if (replaced != null) replaced.shutdown();
+        }
+
         resamplerFactory = new FFmpegResampler.FFmpegResamplerFactory();
 
         for (AudioRegistration registration : new ArrayList<>(registrationMap.values()))
@@ -125,6 +163,23 @@ public class Audio implements PluginReference {
         return loopDelay;
     }
 
+    public LoopTimer.Mode getLoopTimerMode() {
+        return loopTimerMode;
+    }
+
+    public AudioConnection.Scheduling getScheduling() {
+        return scheduling;
+    }
+
+    /**
+     * Gets how much audio a channel that has run dry must have ready again before it is heard (see
+     * {@link io.manebot.plugin.audio.mixer.input.UnderrunPolicy}).
+     * @return jitter buffer time, in milliseconds.
+     */
+    public long getJitterBufferTime() {
+        return jitterBufferTime;
+    }
+
     public AudioRegistration getRegistration(Platform platform) {
         return registrationMap.get(platform);
     }
@@ -173,12 +228,14 @@ public class Audio implements PluginReference {
                 .collect(Collectors.toList());
     }
     
-    private SoftFilter createSoftFilter(float sampleRate, float frequency, float resonance) {
-        SoftFilter filter = new SoftFilter(sampleRate);
-        filter.setFilterType(SoftFilter.FILTERTYPE_BP12);
-        filter.setFrequency(frequency);
-        filter.setResonance(resonance);
-        return filter;
+    /**
+     * Finds if the default dynamics filters (compressor, limiter) should detect levels across all channels together,
+     * rather than on each channel separately.  Linked filters, and the multi-channel soft clip that goes with them,
+     * also work on interleaved frames, so the default chain then runs fully interleaved.
+     * @return true if stereo linking is enabled; off unless the "stereoLink" property is set.
+     */
+    private boolean isStereoLinked() {
+        return Boolean.parseBoolean(plugin.getProperty("stereoLink", "false"));
     }
 
     public Collection<Function<Mixer, MultiChannelFilter>> getDefaultFilters(float sampleRate, int channels) {
@@ -188,53 +245,75 @@ public class Audio implements PluginReference {
                     float compressorTheshold = Float.parseFloat(plugin.getProperty("compressorTheshold", "1"));
                     float compressorRatio = Float.parseFloat(plugin.getProperty("compressorRatio", "1"));
                     float compressorKnee = Float.parseFloat(plugin.getProperty("compressorKnee", "0"));
+                    if (isStereoLinked())
+                        return new FilterLinkedCompressor(
+                                sampleRate, channels, mixer.getBufferSize(),
+                                compressorTheshold, compressorRatio, compressorKnee
+                        );
+
                     return MuxedMultiChannelFilter.from(channels, (ch) -> new FilterCompressor(
                             sampleRate, compressorTheshold, compressorRatio, compressorKnee
                     ));
                 },
                 mixer -> {
+                    // Equalize
                     float subBassFrequency = Float.parseFloat(plugin.getProperty("subBassFrequency", "65.0"));
                     float subBassResonance = Float.parseFloat(plugin.getProperty("subBassResonance", "1"));
                     float subBassWet = Float.parseFloat(plugin.getProperty("subBassWet", "0.35"));
                     float subBassDry = Float.parseFloat(plugin.getProperty("subBassDry", "0.65"));
-                    return MuxedMultiChannelFilter.from(channels, (ch) -> new FilterBandPass(
-                            sampleRate, createSoftFilter(sampleRate, subBassFrequency, subBassResonance), subBassWet, subBassDry
-                    ));
-                },
-                mixer -> {
+
                     float bassFrequency = Float.parseFloat(plugin.getProperty("bassFrequency", "120.0"));
                     float bassResonance = Float.parseFloat(plugin.getProperty("bassResonance", "1"));
                     float bassWet = Float.parseFloat(plugin.getProperty("bassWet", "0.5"));
                     float bassDry = Float.parseFloat(plugin.getProperty("bassDry", "0.5"));
-                    return MuxedMultiChannelFilter.from(channels, (ch) -> new FilterBandPass(
-                            sampleRate, createSoftFilter(sampleRate, bassFrequency, bassResonance), bassWet, bassDry
-                    ));
-                },
-                mixer -> {
+
                     float midFrequency = Float.parseFloat(plugin.getProperty("midFrequency", "2500"));
                     float midResonance = Float.parseFloat(plugin.getProperty("midResonance", "1"));
                     float midWet = Float.parseFloat(plugin.getProperty("midWet", "0.15"));
                     float midDry = Float.parseFloat(plugin.getProperty("midDry", "0.85"));
-                    return MuxedMultiChannelFilter.from(channels, (ch) -> new FilterBandPass(
-                            sampleRate, createSoftFilter(sampleRate, midFrequency, midResonance), midWet, midDry
-                    ));
+
+                    return new FilterEqualizer(
+                            sampleRate, channels,
+                            new FilterEqualizer.Band(subBassFrequency, subBassResonance, subBassWet, subBassDry),
+                            new FilterEqualizer.Band(bassFrequency, bassResonance, bassWet, bassDry),
+                            new FilterEqualizer.Band(midFrequency, midResonance, midWet, midDry)
+                    );
                 },
                 mixer -> {
                     float limiterThreshold = Float.parseFloat(plugin.getProperty("limiterThreshold", "0.7"));
                     float limiterAttack = Float.parseFloat(plugin.getProperty("limiterAttack", "1"));
                     float limiterRelease = Float.parseFloat(plugin.getProperty("limiterRelease", "0.0001"));
                     float limiterSlope = Float.parseFloat(plugin.getProperty("limiterSlope", "0.5"));
+                    boolean limiterTruePeak = Boolean.parseBoolean(plugin.getProperty("limiterTruePeak", "false"));
+                    if (isStereoLinked())
+                        return new FilterLinkedLimiter(
+                                sampleRate, channels, mixer.getBufferSize(),
+                                limiterThreshold, limiterAttack, limiterRelease, limiterSlope, limiterTruePeak
+                        );
+
                     return MuxedMultiChannelFilter.from(channels, (ch) -> new FilterLimiter(
-                            sampleRate, limiterThreshold, limiterAttack, limiterRelease, limiterSlope
+                            sampleRate, limiterThreshold, limiterAttack, limiterRelease, limiterSlope, limiterTruePeak
                     ));
                 },
-                mixer -> MuxedMultiChannelFilter.from(channels, (ch) -> new FilterSoftClip(sampleRate))
+                mixer -> {
+                    if (isStereoLinked())
+                        return new FilterMultiChannelSoftClip(sampleRate, channels, mixer.getBufferSize());
+
+                    return MuxedMultiChannelFilter.from(channels, (ch) -> new FilterSoftClip(sampleRate));
+                }
         );
     }
 
     public Mixer createMixer(String id, Consumer<Mixer.Builder> consumer) {
         BufferedMixer.Builder builder = new BufferedMixer.Builder(this, id);
-        builder.setBufferTime((float)bufferTime / 1000f);
+        if (minimumBufferTime > 0L)
+            builder.setAdaptiveBufferTime((float)minimumBufferTime / 1000f, (float)bufferTime / 1000f);
+        else
+            builder.setBufferTime((float)bufferTime / 1000f);
+        if (quantumTime > 0L)
+            builder.setQuantumTime((float)quantumTime / 1000f);
+        if (renderPool != null)
+            builder.setRenderPool(renderPool);
         consumer.accept(builder);
         return builder.build();
     }
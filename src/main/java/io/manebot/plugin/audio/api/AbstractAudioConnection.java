@@ -17,15 +17,18 @@ import java.util.logging.Logger;
 public abstract class AbstractAudioConnection implements AudioConnection {
     private final Object audioLock = new Object();
     private final Object enableLock = new Object();
+    private final Object demandLock = new Object();
 
     private final Audio audio;
 
     private final Collection<Mixer> mixers = new LinkedList<>();
+    private final Set<Mixer> activeMixers = new LinkedHashSet<>(); // Guarded by audioLock
     private final Collection<AudioChannel> channels = new LinkedList<>();
 
     private MixerProcessingTask task;
 
     private boolean connected = false;
+    private boolean demanded = false;
 
     public AbstractAudioConnection(Audio audio) {
         this.audio = audio;
@@ -54,6 +57,17 @@ public abstract class AbstractAudioConnection implements AudioConnection {
         return Collections.unmodifiableCollection(mixers);
     }
 
+    /**
+     * Gets mixers of this connection that are playing or running, i.e. those the processor works on each tick.
+     * @return Immutable collection of audio mixers.
+     */
+    @Override
+    public Collection<Mixer> getActiveMixers() {
+        synchronized (audioLock) {
+            return Collections.unmodifiableCollection(new ArrayList<>(activeMixers));
+        }
+    }
+
     /**
      * Connects the AudioConnection.
      */
@@ -123,6 +137,9 @@ public abstract class AbstractAudioConnection implements AudioConnection {
                 throw new IllegalArgumentException("mixer", new IllegalStateException(mixer.getId()));
 
             mixers.add(mixer);
+            mixer.setDemandListener(this::signalDemand);
+            mixer.setActivityListener(this::signalActivity);
+            if (mixer.isPlaying() || mixer.isRunning()) activeMixers.add(mixer);
             audioLock.notifyAll();
         }
 
@@ -136,6 +153,10 @@ public abstract class AbstractAudioConnection implements AudioConnection {
     public boolean unregisterMixer(Mixer mixer) {
         synchronized (audioLock) {
             if (mixers.remove(mixer)) {
+                mixer.setDemandListener(null);
+                mixer.setActivityListener(null);
+                activeMixers.remove(mixer);
+
                 if (mixer.getRegistrant() != null)
                     mixer.getRegistrant().onMixerUnregistered(mixer);
 
@@ -146,10 +167,61 @@ public abstract class AbstractAudioConnection implements AudioConnection {
         }
     }
 
+    /**
+     * Called by mixers, from their sinks' threads, when a sink wants more samples.
+     */
+    private void signalDemand(Mixer mixer) {
+        synchronized (demandLock) {
+            demanded = true;
+            demandLock.notifyAll();
+        }
+    }
+
+    /**
+     * Called by mixers when they go from idle to playing, or their sinks are started or stopped.  Active mixers are
+     * added to the active set, waking the processing thread if it is idle (or waiting for demand); mixers neither
+     * playing nor running leave it.
+     */
+    private void signalActivity(Mixer mixer) {
+        boolean active;
+
+        synchronized (audioLock) {
+            active = mixer.isPlaying() || mixer.isRunning();
+
+            if (!active) activeMixers.remove(mixer);
+            else if (mixers.contains(mixer)) activeMixers.add(mixer);
+
+            audioLock.notifyAll();
+        }
+
+        if (active) signalDemand(mixer);
+    }
+
+    /**
+     * Waits until a mixer signals demand, or the timeout passes.
+     */
+    private void awaitDemand(long timeout) throws InterruptedException {
+        synchronized (demandLock) {
+            if (!demanded) demandLock.wait(timeout);
+            demanded = false;
+        }
+    }
+
+    /**
+     * Gets the timer pacing this connection's mixers.
+     * @return LoopTimer instance, or null if the connection has not started processing yet.
+     */
+    @Override
+    public LoopTimer getTimer() {
+        MixerProcessingTask task = this.task;
+        return task != null ? task.timer : null;
+    }
+
     private class MixerProcessingTask implements Runnable {
         private final CompletableFuture<Boolean> future = new CompletableFuture<>();
 
-        private boolean running = false;
+        private volatile boolean running = false;
+        private volatile LoopTimer timer;
 
         private MixerProcessingTask() { }
 
@@ -161,6 +233,10 @@ public abstract class AbstractAudioConnection implements AudioConnection {
                 audioLock.notifyAll();
             }
 
+            synchronized (demandLock) {
+                demandLock.notifyAll();
+            }
+
             future.get();
         }
 
@@ -171,35 +247,51 @@ public abstract class AbstractAudioConnection implements AudioConnection {
     
                 Virtual.getInstance().currentProcess().setDescription("AudioThread");
     
-                LoopTimer timer = new LoopTimer(audio.getLoopDelay(), audioLock);
-                List<Mixer> playingMixers = new ArrayList<>();
+                LoopTimer timer = this.timer = new LoopTimer(audio.getLoopDelay(), audioLock, audio.getLoopTimerMode());
+                List<Mixer> playingMixers = new ArrayList<>(), idleMixers = new ArrayList<>();
+                boolean pull = audio.getScheduling() == Scheduling.PULL;
+                boolean awaitingDemand;
     
-                synchronized (audioLock) {
-                    while (running && isConnected() && audio.getPlugin().isEnabled()) {
-                        try (Profiler audioProfiler = Profiler.region("audio")) {
-                            for (Mixer mixer : mixers) {
-                                // If the mixer isn't playing anything we have no work to do.
-                                if (!mixer.isPlaying()) {
-                                    // If mixer is running, stop the mixer since no players are playing.
-                                    if (mixer.isRunning()) {
-                                        Logger.getGlobal().fine("Stopping mixer: " + mixer.getId() + "...");
-    
-                                        Thread.currentThread().setPriority(Thread.NORM_PRIORITY);
-                                        mixer.setRunning(false);
-    
-                                        Logger.getGlobal().fine("Stopped mixer: " + mixer.getId() + ".");
-                                    }
-                                } else {
-                                    playingMixers.add(mixer);
+                while (running && isConnected() && audio.getPlugin().isEnabled()) {
+                    try (Profiler audioProfiler = Profiler.region("audio")) {
+                        synchronized (audioLock) {
+                            // Only active mixers are looked at; idle ones are added back when they signal activity
+                            for (Mixer mixer : activeMixers)
+                                (mixer.isPlaying() ? playingMixers : idleMixers).add(mixer);
+
+                            // If the mixer isn't playing anything we have no work to do.  Stopping a mixer signals
+                            // activity, which takes it out of the active set, so that is done outside the loop above.
+                            for (Mixer mixer : idleMixers) {
+                                // If mixer is running, stop the mixer since no players are playing.
+                                if (mixer.isRunning()) {
+                                    Logger.getGlobal().fine("Stopping mixer: " + mixer.getId() + "...");
+
+                                    Thread.currentThread().setPriority(Thread.NORM_PRIORITY);
+                                    mixer.setRunning(false);
+
+                                    Logger.getGlobal().fine("Stopped mixer: " + mixer.getId() + ".");
                                 }
+
+                                activeMixers.remove(mixer);
                             }
+
+                            idleMixers.clear();
     
                             if (playingMixers.size() <= 0) {
                                 audioLock.wait(1000L); // I see the point now
                                 continue;
                             }
     
+                            awaitingDemand = pull;
+
                             for (Mixer mixer : playingMixers) {
+                                // When pulling, demand-driven mixers only render once their sinks ask for samples
+                                if (pull && mixer.isRunning() && mixer.isDemandDriven()) {
+                                    if (!mixer.takeDemand()) continue;
+                                } else {
+                                    awaitingDemand = false;
+                                }
+
                                 // Play audio on system
                                 try {
                                     // Start the mixer if it's not running
@@ -221,9 +313,20 @@ public abstract class AbstractAudioConnection implements AudioConnection {
     
                             // Clear the list to wipe clean
                             playingMixers.clear();
+                        }
     
-                            // Sleep for designated amount of time
-                            try (Profiler sleepProfiler = Profiler.region("sleep")) {
+                        // Sleep for designated amount of time; a parking timer sleeps without holding the audio lock,
+                        // so mixers can be registered in the meantime.
+                        try (Profiler sleepProfiler = Profiler.region("sleep")) {
+                            if (awaitingDemand) {
+                                // Every playing mixer is paced by its sinks
+                                awaitDemand(1000L);
+                                timer.reset();
+                            } else if (timer.getMode() == LoopTimer.Mode.SPIN) {
+                                synchronized (audioLock) {
+                                    timer.sleep();
+                                }
+                            } else {
                                 timer.sleep();
                             }
                         }
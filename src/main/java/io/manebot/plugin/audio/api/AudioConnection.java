@@ -3,8 +3,11 @@ package io.manebot.plugin.audio.api;
 import io.manebot.chat.Chat;
 import io.manebot.plugin.audio.channel.AudioChannel;
 import io.manebot.plugin.audio.mixer.Mixer;
+import io.manebot.plugin.audio.util.LoopTimer;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.stream.Collectors;
 
 public interface AudioConnection {
 
@@ -14,6 +17,16 @@ public interface AudioConnection {
      */
     Collection<Mixer> getMixers();
 
+    /**
+     * Gets the mixers of this connection that are currently playing or running.
+     * @return Immutable collection of active audio mixers.
+     */
+    default Collection<Mixer> getActiveMixers() {
+        return Collections.unmodifiableCollection(getMixers().stream()
+                .filter(mixer -> mixer.isPlaying() || mixer.isRunning())
+                .collect(Collectors.toList()));
+    }
+
     /**
      * Gets audio channels registered to this connection.
      * @return Immutable collection of audio channels.
@@ -54,6 +67,14 @@ public interface AudioConnection {
      */
     void disconnect();
 
+    /**
+     * Gets the timer pacing this connection's mixers, if any.
+     * @return LoopTimer instance, or null if there is none.
+     */
+    default LoopTimer getTimer() {
+        return null;
+    }
+
     AudioChannel registerChannel(AudioChannel channel);
 
     boolean unregisterChannel(AudioChannel channel);
@@ -61,4 +82,17 @@ public interface AudioConnection {
     Mixer registerMixer(Mixer mixer);
 
     boolean unregisterMixer(Mixer mixer);
+
+    enum Scheduling {
+        /**
+         * Mixers are processed on every tick of the connection's loop timer.
+         */
+        PUSH,
+
+        /**
+         * Mixers whose sinks all signal demand are processed only when a sink asks for more samples; the connection
+         * sleeps until then.  Other mixers are still processed on the loop timer.
+         */
+        PULL
+    }
 }
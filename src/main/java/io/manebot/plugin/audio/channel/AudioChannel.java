@@ -10,13 +10,16 @@ import io.manebot.plugin.audio.event.channel.*;
 import io.manebot.plugin.audio.mixer.Mixer;
 import io.manebot.plugin.audio.mixer.input.AudioProvider;
 import io.manebot.plugin.audio.mixer.input.MixerChannel;
+import io.manebot.plugin.audio.mixer.input.PrerolledAudioProvider;
 import io.manebot.plugin.audio.player.AudioPlayer;
+import io.manebot.plugin.audio.player.TransitionedAudioPlayer;
 import io.manebot.user.UserAssociation;
 
 import java.util.*;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -186,6 +189,34 @@ public abstract class AudioChannel {
         future.thenAcceptAsync(this::onChannelRemoved);
     }
 
+    /**
+     * Plays a provider after a player on this channel, overlapping the player's fade-out.  The provider is pre-rolled
+     * ahead of the fade-out; once the fade-out begins, a player is made for it and added to this channel (the player
+     * fading out no longer counts as blocking).
+     * @param player player to follow; should be on this channel.
+     * @param next provider to play next.
+     * @param leadTimeInSeconds time ahead of the fade-out to begin pre-rolling the next provider.
+     * @param playerFactory makes the next player, playing the pre-rolled provider.
+     */
+    public void setNext(TransitionedAudioPlayer player, PrerolledAudioProvider next, double leadTimeInSeconds,
+                        Function<AudioProvider, AudioPlayer> playerFactory) {
+        player.setNext(next, leadTimeInSeconds, provider -> {
+            AudioPlayer nextPlayer = playerFactory.apply(provider);
+
+            try {
+                addPlayer(nextPlayer);
+            } catch (RuntimeException e) {
+                try {
+                    nextPlayer.close();
+                } catch (Exception ex) {
+                    e.addSuppressed(ex);
+                }
+
+                throw e;
+            }
+        });
+    }
+
     public AudioChannelRegistrant getRegistrant() {
         return owner;
     }
@@ -74,6 +74,10 @@ public class AudioCommand extends AnnotatedCommandExecutor {
                                 .map(AudioChannel::getId).collect(Collectors.toList()))
                         .item("Mixers", registration.getConnection().getMixers().stream()
                                 .map(Mixer::getId).collect(Collectors.toList()))
+                        .item("Active mixers", registration.getConnection().getActiveMixers().stream()
+                                .map(Mixer::getId).collect(Collectors.toList()))
+                        .item("Timer", registration.getConnection().getTimer() == null ? "(none)" :
+                                registration.getConnection().getTimer().toString())
         );
 
     }
@@ -14,11 +14,13 @@ import io.manebot.plugin.audio.Audio;
 import io.manebot.plugin.audio.mixer.Mixer;
 import io.manebot.plugin.audio.mixer.input.MixerChannel;
 import io.manebot.plugin.audio.mixer.output.MixerSink;
+import io.manebot.plugin.audio.player.TransitionedAudioPlayer;
 import io.manebot.security.Permission;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class MixerCommand extends AnnotatedCommandExecutor {
     private final PluginRegistration pluginRegistration;
@@ -120,6 +122,14 @@ public class MixerCommand extends AnnotatedCommandExecutor {
         }
 
         sender.getUser().getEntity().getProperty("Mixer:Volume").set(value / 100D);
+
+        // Players cache the volume property; let the sender's players ramp to the new volume.
+        pluginRegistration.getInstance().getInstance(Audio.class).getChannels().stream()
+                .flatMap(channel -> channel.getPlayers().stream())
+                .filter(player -> player instanceof TransitionedAudioPlayer)
+                .filter(player -> player.getOwner().equals(sender.getUser()))
+                .forEach(player -> ((TransitionedAudioPlayer) player).setVolume(value / 100D));
+
         sender.sendMessage("Mixer volume set to " + String.format("%.2f", value) + "%.");
     }
 
@@ -223,6 +233,18 @@ public class MixerCommand extends AnnotatedCommandExecutor {
                         .item("Played", String.format("%.3f", mixer.getPositionInSeconds())
                                 + " second(s), " + mixer.available() + " av")
                         .item("Buffer size", mixer.getBufferSize() + " sample(s)")
+                        .item("Quantum", mixer.getQuantum() + " sample(s)")
+                        .item("Buses", mixer.getBuses().isEmpty() ? "(none)" : mixer.getBuses().stream()
+                                .map(bus -> bus.getName() + " (gain " + bus.getGain() +
+                                        (bus.getDuckingBus() != null ? ", ducks under " +
+                                                bus.getDuckingBus().getName() : "") + ")")
+                                .collect(Collectors.joining(", ")))
+                        .item("Latency", mixer.getAdaptiveLatency() == null ? "fixed" :
+                                "adaptive, " + mixer.getAdaptiveLatency().toString())
+                        .item("Frames", mixer.getFramePool() == null ? "(none)" : mixer.getFramePool().toString())
+                        .item("Channel underruns", Long.toString(mixer.getChannelUnderruns()))
+                        .item("Start latency", mixer.getStartLatency() == null ? "(none)" :
+                                mixer.getStartLatency().toString())
         );
     }
 }
@@ -2,15 +2,26 @@ package io.manebot.plugin.audio.mixer;
 
 import io.manebot.plugin.audio.*;
 import io.manebot.plugin.audio.event.mixer.MixerStateChangedEvent;
+import io.manebot.plugin.audio.mixer.filter.FilterChain;
 import io.manebot.plugin.audio.mixer.filter.MultiChannelFilter;
 import io.manebot.plugin.audio.mixer.filter.MuxedMultiChannelFilter;
 import io.manebot.plugin.audio.mixer.filter.SingleChannelFilter;
 import io.manebot.plugin.audio.mixer.input.AudioProvider;
 import io.manebot.plugin.audio.mixer.input.MixerChannel;
+import io.manebot.plugin.audio.mixer.input.ResampledChannelGroup;
+import io.manebot.plugin.audio.mixer.input.UnderrunPolicy;
 import io.manebot.plugin.audio.mixer.output.MixerSink;
+import io.manebot.plugin.audio.util.LatencyStatistics;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public abstract class AbstractMixer implements Mixer {
@@ -26,9 +37,24 @@ public abstract class AbstractMixer implements Mixer {
     private final List<MixerSink> sinks = Collections.synchronizedList(new LinkedList<>());
     private final List<FutureChannel> channels = Collections.synchronizedList(new LinkedList<>());
     private final List<MultiChannelFilter> filters = Collections.synchronizedList(new LinkedList<>());
+    private final Map<String, Bus> buses = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, ResampledChannelGroup> channelGroups = new HashMap<>(); // Guarded by channelLock
+    private final FilterChain filterChain;
 
     private final Object channelLock = new Object();
 
+    private final AtomicBoolean demand = new AtomicBoolean(false);
+    private volatile Consumer<Mixer> demandListener;
+    private volatile Consumer<Mixer> activityListener;
+
+    // Channels added but not yet heard, and when they were added
+    private final Map<MixerChannel, Long> pendingStarts = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final LatencyStatistics startLatency = new LatencyStatistics();
+    private final AtomicLong channelUnderruns = new AtomicLong(); // Channels may be read in parallel
+
+    private int blockSize; // Configured render block, in samples; 0 to follow the sinks only
+    private volatile int quantum;
+
     public AbstractMixer(Audio audio, String id,
                     MixerRegistrant registrant,
                     int bufferSize, float audioSampleRate, int audioChannels) {
@@ -39,6 +65,9 @@ public abstract class AbstractMixer implements Mixer {
 
         this.audioSampleRate = audioSampleRate;
         this.audioChannels = audioChannels;
+
+        this.filterChain = new FilterChain(filters, audioChannels);
+        this.quantum = audioChannels;
     }
     
     @Override
@@ -62,21 +91,28 @@ public abstract class AbstractMixer implements Mixer {
             throw new IllegalArgumentException("invalid filter count: channel mismatch");
 
         filters.add(filter);
+        filterChain.invalidate();
         return filter;
     }
 
     @Override
     public boolean removeFilter(MultiChannelFilter filter) {
-        return filters.remove(filter);
+        if (filters.remove(filter)) {
+            filterChain.invalidate();
+            return true;
+        } else return false;
     }
 
     @Override
     public boolean addSink(MixerSink sink) {
         if (sink.getAudioFormat().getSampleRate() != getAudioSampleRate() ||
                 sink.getAudioFormat().getChannels() != getAudioChannels())
-            throw new IllegalArgumentException("sink format unacceptable");
+            throw new IllegalArgumentException("sink format unacceptable; use addAdaptedSink to convert");
 
         if (sinks.add(sink)) {
+            sink.setDemandListener(this::signalDemand);
+            updateQuantum();
+
             if (isRunning()) sink.start();
             else sink.stop();
 
@@ -89,48 +125,262 @@ public abstract class AbstractMixer implements Mixer {
     @Override
     public boolean removeSink(MixerSink sink) {
         if (sinks.remove(sink)) {
-            sink.stop();
+            sink.setDemandListener(null);
+            boolean stopped = sink.stop();
+            updateQuantum();
+
+            // The mixer may have stopped running with it
+            if (stopped) signalActivity();
+
             return true;
         } else return false;
     }
 
+    /**
+     * Sets a block size this mixer renders in multiples of, in addition to the block sizes of its sinks.
+     * @param blockSize block size, in samples (whole frames); 0 to follow the sinks only.
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize < 0 || blockSize % getAudioChannels() != 0)
+            throw new IllegalArgumentException("invalid blockSize: " + blockSize);
+
+        this.blockSize = blockSize;
+        updateQuantum();
+    }
+
+    @Override
+    public int getQuantum() {
+        return quantum;
+    }
+
+    /**
+     * Recalculates the render quantum: the least common multiple of the frame size, the configured block size and the
+     * block sizes of every sink.  A quantum that wouldn't fit the buffer twice is no use, so the mixer then renders
+     * in plain frames instead.
+     */
+    private void updateQuantum() {
+        long quantum = getAudioChannels();
+        if (blockSize > 0) quantum = lcm(quantum, blockSize);
+
+        synchronized (sinks) {
+            for (MixerSink sink : sinks)
+                quantum = lcm(quantum, Math.max(1, sink.getBlockSize()));
+        }
+
+        if (quantum > getBufferSize() / 2) {
+            Logger.getGlobal().warning("Mixer " + getId() + " can't render in blocks of " + quantum +
+                    " sample(s); buffer is too small");
+            quantum = getAudioChannels();
+        }
+
+        this.quantum = (int) quantum;
+    }
+
+    private static long lcm(long a, long b) {
+        long x = a, y = b;
+        while (y != 0) {
+            long t = x % y;
+            x = y;
+            y = t;
+        }
+
+        return (a / x) * b;
+    }
+
+    private void signalDemand() {
+        demand.set(true);
+
+        Consumer<Mixer> listener = this.demandListener;
+        if (listener != null) listener.accept(this);
+    }
+
+    @Override
+    public void setDemandListener(Consumer<Mixer> listener) {
+        this.demandListener = listener;
+    }
+
+    @Override
+    public void setActivityListener(Consumer<Mixer> listener) {
+        this.activityListener = listener;
+    }
+
+    /**
+     * Tells the activity listener this mixer may have become active or idle.  Never call this under the channel lock:
+     * the listener takes the connection's lock, which the audio thread holds while it looks at the channels.
+     */
+    private void signalActivity() {
+        Consumer<Mixer> listener = this.activityListener;
+        if (listener != null) listener.accept(this);
+    }
+
+    @Override
+    public long getChannelUnderruns() {
+        return channelUnderruns.get();
+    }
+
+    @Override
+    public LatencyStatistics getStartLatency() {
+        return startLatency;
+    }
+
+    /**
+     * Finds if any channels have been added, but have not yet had samples written to a sink.
+     * @return true if there are channels waiting to start.
+     */
+    protected boolean hasPendingStarts() {
+        return !pendingStarts.isEmpty();
+    }
+
+    /**
+     * Records that a channel's first samples were written to a sink, measuring its start latency.  Called by the
+     * processing thread; does nothing for channels that have already started.
+     * @param channel channel that was heard.
+     */
+    protected void channelStarted(MixerChannel channel) {
+        Long added = pendingStarts.remove(channel);
+        if (added != null) startLatency.record(System.nanoTime() - added);
+    }
+
+    @Override
+    public boolean isDemandDriven() {
+        synchronized (sinks) {
+            boolean running = false;
+
+            for (MixerSink sink : sinks) {
+                if (!sink.isRunning()) continue;
+                if (!sink.isSignallingDemand()) return false;
+                running = true;
+            }
+
+            return running;
+        }
+    }
+
+    @Override
+    public boolean takeDemand() {
+        return demand.getAndSet(false);
+    }
+
+    /**
+     * Gets a snapshot of this mixer's channels, along with their cached state.
+     * @return channels.
+     */
+    protected List<FutureChannel> getFutureChannels() {
+        synchronized (channelLock) {
+            return new ArrayList<>(channels);
+        }
+    }
+
     @Override
     public Collection<MixerChannel> getChannels() {
-        Collection<MixerChannel> realChannels;
+        Collection<MixerChannel> realChannels = new ArrayList<>();
         synchronized (channelLock) {
-            realChannels = channels.stream()
-                    .map(FutureChannel::getChannel).collect(Collectors.toList());
+            // Channels at a foreign format are listed themselves, rather than the group they are mixed in
+            for (FutureChannel futureChannel : channels) {
+                MixerChannel channel = futureChannel.getChannel();
+                if (channelGroups.containsValue(channel))
+                    realChannels.addAll(((ResampledChannelGroup) channel).getMembers());
+                else
+                    realChannels.add(channel);
+            }
         }
         return Collections.unmodifiableCollection(realChannels);
     }
 
     @Override
     public CompletableFuture<MixerChannel> addChannel(MixerChannel channel) {
-        FutureChannel futureChannel = new FutureChannel(channel, new CompletableFuture<>());
+        return addChannel(channel, null);
+    }
+
+    @Override
+    public CompletableFuture<MixerChannel> addChannel(MixerChannel channel, Bus bus) {
+        return addChannel(channel, bus, 0L);
+    }
+
+    @Override
+    public CompletableFuture<MixerChannel> addChannel(MixerChannel channel, Bus bus, long startPosition) {
+        if (bus != null && (bus.getMixer() != this || bus.isRemoved()))
+            throw new IllegalArgumentException("bus is not on this mixer");
+
+        // Channels always start on a frame boundary
+        startPosition -= startPosition % getAudioChannels();
+        boolean scheduled = startPosition > getPosition();
 
         if (channel.getSampleRate() != getAudioSampleRate() || channel.getChannels() != getAudioChannels())
-            throw new IllegalArgumentException("format mismatch");
+            return addResampledChannel(channel, bus, scheduled ? startPosition : 0L);
 
-        boolean added;
+        FutureChannel futureChannel = new FutureChannel(channel, bus, startPosition, new CompletableFuture<>());
+        boolean wasPlaying;
 
         synchronized (channelLock) {
-            added = channels.add(futureChannel);
+            wasPlaying = isPlaying();
+            addFutureChannel(futureChannel, scheduled);
+        }
 
-            if (!added) throw new IllegalStateException();
+        // Wake the scheduler now rather than on its next idle check (outside the channel lock)
+        if (!wasPlaying) signalActivity();
 
-            if (!isPlaying()) setRunning(true);
+        return futureChannel.getFuture();
+    }
+
+    /**
+     * Adds a channel to the mixing list, without signalling the activity listener.  Called with the channel lock held.
+     */
+    private void addFutureChannel(FutureChannel futureChannel, boolean scheduled) {
+        // A scheduled channel is late only if it is heard after its start, which the mixer already ensures
+        if (!scheduled) pendingStarts.put(futureChannel.getChannel(), System.nanoTime());
+
+        futureChannel.listen();
+        boolean added = channels.add(futureChannel);
+
+        if (!added) throw new IllegalStateException();
+
+        if (added) {
+            //TODO: Events...
+        }
+    }
+
+    /**
+     * Adds a channel at a foreign format to the group of channels sharing its format (and bus), which are mixed at
+     * that format and resampled together.  The group is created, and added to this mixer, with its first channel.
+     * Channels scheduled to start later share a group only with channels scheduled at the same position.
+     */
+    private CompletableFuture<MixerChannel> addResampledChannel(MixerChannel channel, Bus bus, long startPosition) {
+        String key = channel.getSampleRate() + "/" + channel.getChannels() + (bus != null ? "/" + bus.getName() : "")
+                + (startPosition > 0L ? "@" + startPosition : "");
+        CompletableFuture<MixerChannel> future;
+        boolean wasPlaying;
+
+        synchronized (channelLock) {
+            wasPlaying = isPlaying();
 
-            if (added) {
-                //TODO: Events...
+            ResampledChannelGroup group = channelGroups.get(key);
+            if (group != null) {
+                future = group.add(channel);
+            } else {
+                group = new ResampledChannelGroup(
+                        getAudio().getResamplerFactory(),
+                        channel.getSampleRate(), channel.getChannels(),
+                        (int) getAudioSampleRate(), getAudioChannels(),
+                        getBufferSize()
+                );
+
+                future = group.add(channel);
+                channelGroups.put(key, group);
+                addFutureChannel(new FutureChannel(group, bus, startPosition, new CompletableFuture<>()),
+                        startPosition > 0L);
             }
         }
 
-        return futureChannel.getFuture();
+        if (!wasPlaying) signalActivity();
+
+        return future;
     }
 
     @Override
     public boolean removeChannel(MixerChannel channel) {
         boolean removed, stopped;
+        List<ResampledChannelGroup> removedGroups = new ArrayList<>();
 
         synchronized (channelLock) {
             boolean wasPlaying = isPlaying();
@@ -139,14 +389,35 @@ public abstract class AbstractMixer implements Mixer {
                     .collect(Collectors.toList());
 
             futureChannels.forEach(futureChannel -> {
-                if (channels.remove(futureChannel))
+                if (channels.remove(futureChannel)) {
+                    futureChannel.unlisten();
                     futureChannel.getFuture().complete(futureChannel.getChannel());
+                }
             });
 
+            pendingStarts.remove(channel);
+
             removed = futureChannels.size() > 0;
+
+            if (removed && channelGroups.values().remove(channel)) {
+                removedGroups.add((ResampledChannelGroup) channel);
+            } else if (!removed) {
+                // Maybe a channel at a foreign format; the group goes once it has no channels left
+                for (ResampledChannelGroup group : channelGroups.values())
+                    removed |= group.remove(channel);
+            }
+
             stopped = removed && wasPlaying && !isPlaying();
         }
 
+        for (ResampledChannelGroup group : removedGroups) {
+            try {
+                group.close();
+            } catch (Exception e) {
+                Logger.getGlobal().log(Level.WARNING, "Problem closing " + group.getName(), e);
+            }
+        }
+
         if (stopped) setRunning(false);
 
         if (removed) {
@@ -156,11 +427,51 @@ public abstract class AbstractMixer implements Mixer {
         return removed;
     }
 
+    @Override
+    public Collection<Bus> getBuses() {
+        synchronized (buses) {
+            return Collections.unmodifiableCollection(new ArrayList<>(buses.values()));
+        }
+    }
+
+    @Override
+    public Bus getBus(String name) {
+        return buses.get(name);
+    }
+
+    @Override
+    public Bus createBus(String name) {
+        synchronized (buses) {
+            if (buses.containsKey(name))
+                throw new IllegalStateException("bus already exists: " + name);
+
+            Bus bus = new Bus(this, name, getBufferSize());
+            buses.put(name, bus);
+            return bus;
+        }
+    }
+
+    @Override
+    public boolean removeBus(Bus bus) {
+        if (buses.remove(bus.getName(), bus)) {
+            bus.setRemoved();
+            return true;
+        } else return false;
+    }
+
     @Override
     public Collection<MultiChannelFilter> getFilters() {
         return Collections.unmodifiableCollection(filters);
     }
 
+    /**
+     * Gets the compiled chain of this mixer's filters.
+     * @return filter chain.
+     */
+    public FilterChain getFilterChain() {
+        return filterChain;
+    }
+
     @Override
     public boolean isRunning() {
         return getSinks().stream().anyMatch(MixerSink::isRunning);
@@ -168,35 +479,73 @@ public abstract class AbstractMixer implements Mixer {
 
     @Override
     public boolean isPlaying() {
-        return getChannels().size() > 0;
+        // Checked every tick; a group of foreign channels counts until it is removed with its last member
+        return !channels.isEmpty();
     }
 
     @Override
     public int available() {
-        // Find out how much the sinks can flush down right now
-        int sinkAvailable = Math.min(
-                getBufferSize(),
-                getSinks().stream().filter(MixerSink::isRunning).mapToInt(MixerSink::availableInput).min().orElse(0)
-        );
+        // Find out how much the sinks can flush down right now: critical sinks hold the mixer back, others only pace it
+        // if there are no critical sinks
+        int critical = Integer.MAX_VALUE, other = 0;
+        synchronized (sinks) {
+            for (MixerSink sink : sinks) {
+                if (!sink.isRunning()) continue;
+
+                int available = getAvailableInput(sink);
+                if (sink.isCritical()) critical = Math.min(critical, available);
+                else other = Math.max(other, available);
+            }
+        }
+
+        int sinkAvailable = Math.min(getBufferSize(), critical != Integer.MAX_VALUE ? critical : other);
 
         // Shortcut
         if (sinkAvailable <= 0) return 0;
 
-        // Get the count of samples available in each channel, taking the minimum first
-        int channelAvailable = getChannels()
-                .stream()
-                .filter(MixerChannel::isPlaying)
-                .mapToInt(AudioProvider::available)
-                .min()
-                .orElse(0);
+        // Get the count of samples available in each channel, taking the minimum first.  Strict channels hold the
+        // mixer back even when they have nothing ready (signalling channels through their cached count, without
+        // calling into them); only channels that have ended are let go.
+        int channelAvailable = Integer.MAX_VALUE;
+        boolean tolerant = false;
+        long position = getPosition();
+        for (FutureChannel channel : getFutureChannels()) {
+            if (!channel.getChannel().isPlaying()) continue;
+
+            // Channels scheduled to start later follow the sinks up to their start
+            long lead = Math.max(0L, channel.getStartPosition() - position);
+            if (lead > 0L) tolerant = true;
+            if (lead >= sinkAvailable) continue;
+
+            // Channels that tolerate underruns never hold the mixer back; they follow the sinks
+            if (!channel.getUnderrunPolicy().isStrict()) {
+                tolerant = true;
+                continue;
+            }
+
+            int available = channel.available();
+            if (available <= 0 && channel.isEnded()) continue;
+
+            channelAvailable = Math.min(channelAvailable, (int) lead + Math.max(0, available));
+        }
 
         // Shortcut
+        if (channelAvailable == Integer.MAX_VALUE) return tolerant ? sinkAvailable : 0;
         if (channelAvailable <= 0) return 0;
 
         // Attempt to flush down the minimum amount of samples that all parties agree on
         return Math.min(sinkAvailable, channelAvailable);
     }
 
+    /**
+     * Finds how many samples this mixer may write to a sink right now.
+     * @param sink running sink.
+     * @return samples that may be written.
+     */
+    protected int getAvailableInput(MixerSink sink) {
+        return sink.availableInput();
+    }
+
     @Override
     public void empty() {
         synchronized (channelLock) {
@@ -222,16 +571,21 @@ public abstract class AbstractMixer implements Mixer {
     @Override
     public boolean setRunning(boolean running) {
         try {
+            boolean wasRunning = isRunning(), changed;
+
             if (running) {
-                return getSinks().stream().filter(x -> !x.isRunning()).allMatch(MixerSink::start);
+                changed = getSinks().stream().filter(x -> !x.isRunning()).allMatch(MixerSink::start);
             } else {
-                boolean stopped = getSinks().stream().filter(MixerSink::isRunning).allMatch(MixerSink::stop);
+                changed = getSinks().stream().filter(MixerSink::isRunning).allMatch(MixerSink::stop);
 
                 // If stopped, reset all filters.
-                if (stopped) filters.forEach(MultiChannelFilter::reset);
-
-                return stopped;
+                if (changed) filters.forEach(MultiChannelFilter::reset);
             }
+
+            // Let the processor pick up, or let go of, a mixer whose sinks were started or stopped
+            if (wasRunning != isRunning()) signalActivity();
+
+            return changed;
         } finally {
             audio.getPlugin().getBot().getEventDispatcher().execute(
                     new MixerStateChangedEvent(this, audio, this));
@@ -248,21 +602,167 @@ public abstract class AbstractMixer implements Mixer {
         return id;
     }
 
-    private class FutureChannel {
+    /**
+     * A channel on this mixer.  Channels that signal readiness (see {@link AudioProvider#setReadinessListener}) have
+     * their availability cached here, so the mixer doesn't have to call into them to find out.
+     */
+    protected class FutureChannel implements AudioProvider.ReadinessListener {
         private final MixerChannel channel;
+        private final Bus bus;
+        private final long startPosition;
         private final CompletableFuture<MixerChannel> future;
 
-        private FutureChannel(MixerChannel channel, CompletableFuture<MixerChannel> future) {
+        private final AtomicInteger ready = new AtomicInteger(0);
+        private volatile boolean signalling = false, ended = false;
+
+        // Underrun tolerance; processing thread only
+        private boolean primed = false;
+        private long starvedSamples = 0L;
+        private volatile long underruns = 0L;
+
+        private FutureChannel(MixerChannel channel, Bus bus, long startPosition,
+                              CompletableFuture<MixerChannel> future) {
             this.channel = channel;
+            this.bus = bus;
+            this.startPosition = startPosition;
             this.future = future;
         }
 
+        private void listen() {
+            signalling = channel.setReadinessListener(this);
+        }
+
+        private void unlisten() {
+            if (signalling) channel.setReadinessListener(null);
+        }
+
         public MixerChannel getChannel() {
             return channel;
         }
 
+        /**
+         * Gets the bus this channel is mixed into.
+         * @return bus, or null if the channel is mixed into the master directly (or its bus was removed).
+         */
+        public Bus getBus() {
+            return bus == null || bus.isRemoved() ? null : bus;
+        }
+
+        /**
+         * Gets the mixer position this channel starts at; the channel isn't read before then.
+         * @return start position, in samples.
+         */
+        public long getStartPosition() {
+            return startPosition;
+        }
+
         public CompletableFuture<MixerChannel> getFuture() {
             return future;
         }
+
+        /**
+         * Finds if availability of this channel is signalled, rather than polled.
+         * @return true if signalled.
+         */
+        public boolean isSignalling() {
+            return signalling;
+        }
+
+        /**
+         * Finds if this channel has signalled the end of its stream.
+         * @return true if ended.
+         */
+        public boolean isEnded() {
+            return ended;
+        }
+
+        /**
+         * Gets the samples available on this channel, from the cache if the channel signals readiness.
+         * @return available samples.
+         */
+        public int available() {
+            return signalling ? Math.max(0, ready.get()) : channel.available();
+        }
+
+        /**
+         * Reads from the channel, keeping the cached availability up to date.
+         */
+        public int read(float[] buffer, int offs, int len) throws IOException {
+            int read = channel.read(buffer, offs, len);
+            if (signalling && read > 0) ready.addAndGet(-read);
+            return read;
+        }
+
+        public UnderrunPolicy getUnderrunPolicy() {
+            return channel.getUnderrunPolicy();
+        }
+
+        /**
+         * Reads a block from a channel that tolerates underruns.  A channel that runs dry is played as far as it can
+         * be and not read again until it has the jitter buffer (or the whole block) ready, so it comes back smoothly.
+         * @param buffer buffer to read into.
+         * @param offs offset to read into the buffer at.
+         * @param len length of the block, in samples.
+         * @param jitter samples the channel must have ready to be heard again after running dry.
+         * @return samples read; the caller pads the rest of the block with silence.
+         */
+        public int readTolerant(float[] buffer, int offs, int len, int jitter) throws IOException {
+            int available = available();
+
+            if (!primed) {
+                if (available < Math.min(jitter, len)) {
+                    starvedSamples += len;
+                    return 0;
+                }
+
+                primed = true;
+            }
+
+            int n = Math.min(len, available);
+            n -= n % getAudioChannels();
+
+            int read = n > 0 ? read(buffer, offs, n) : 0;
+            if (read < len) {
+                primed = false;
+                starvedSamples += len - read;
+                underruns ++;
+                channelUnderruns.incrementAndGet();
+            } else {
+                starvedSamples = 0L;
+            }
+
+            return read;
+        }
+
+        /**
+         * Finds if this channel has been starving for longer than its underrun policy allows.
+         * @return true if the channel should be dropped.
+         */
+        public boolean isStarved() {
+            UnderrunPolicy policy = getUnderrunPolicy();
+            if (policy.getMode() != UnderrunPolicy.Mode.DROP) return false;
+
+            return starvedSamples * 1000L > policy.getTimeoutMillis() * (long) (getAudioSampleRate() * getAudioChannels());
+        }
+
+        /**
+         * Gets the number of times this channel has run dry and been padded with silence.
+         * @return underrun count.
+         */
+        public long getUnderruns() {
+            return underruns;
+        }
+
+        @Override
+        public void onAvailable(AudioProvider provider, int samples) {
+            ready.addAndGet(samples);
+        }
+
+        @Override
+        public void onEnd(AudioProvider provider) {
+            // A provider may discard what it had at its end (e.g. a pipe closing), which no read will account for
+            ready.set(Math.max(0, channel.available()));
+            ended = true;
+        }
     }
 }
@@ -0,0 +1,142 @@
+package io.manebot.plugin.audio.mixer;
+
+/**
+ * Sizes a mixer's in-flight buffer (how far ahead of playback it may render into its sinks) from what it observes:
+ *
+ * - the largest gap between processing passes (scheduler lateness), decaying over time; the target always covers
+ *   twice that;
+ * - sink underflows, which grow the target by half at once;
+ * - a quiet period (no underflows, no lateness beyond the target), after which the target shrinks by an eighth per
+ *   period toward what lateness requires.
+ *
+ * The target stays within the configured bounds, in whole frames.  Observed from the processing thread only; read
+ * from any thread.
+ */
+public class AdaptiveLatency {
+    private static final long quietNanos = 1_000_000_000L;
+
+    private final int minimum, maximum, frameSize;
+    private final double samplesPerNanosecond;
+
+    private volatile int target;
+    private volatile double peakGap = 0D;
+    private volatile long grows = 0L, shrinks = 0L;
+    private volatile String lastDecision = "start";
+
+    private long lastPass = -1L, lastChange, lastUnderflows = -1L;
+
+    /**
+     * Creates a new adaptive latency controller.
+     * @param sampleRate sample rate of the mixer.
+     * @param channels channel count of the mixer.
+     * @param minimum smallest in-flight buffer, in samples.
+     * @param maximum largest in-flight buffer, in samples; also the starting point.
+     */
+    public AdaptiveLatency(float sampleRate, int channels, int minimum, int maximum) {
+        if (minimum <= 0 || maximum < minimum)
+            throw new IllegalArgumentException("invalid bounds: " + minimum + "-" + maximum);
+
+        this.frameSize = channels;
+        this.samplesPerNanosecond = sampleRate * channels / 1_000_000_000D;
+        this.minimum = align(minimum);
+        this.maximum = align(maximum);
+        this.target = this.maximum;
+        this.lastChange = System.nanoTime();
+    }
+
+    private int align(int samples) {
+        return Math.max(frameSize, samples - (samples % frameSize));
+    }
+
+    private int clamp(double samples) {
+        return align((int) Math.max(minimum, Math.min(maximum, samples)));
+    }
+
+    /**
+     * Observes a processing pass, adjusting the target.
+     * @param underflows total underflows reported by the mixer's sinks so far.
+     */
+    public void observe(long underflows) {
+        long now = System.nanoTime();
+
+        if (lastPass >= 0L) {
+            // Peak scheduling gap, decaying slowly so a single hiccup is remembered for a while
+            double gap = (now - lastPass) * samplesPerNanosecond;
+            peakGap = Math.max(gap, peakGap - peakGap / 256D);
+        }
+        lastPass = now;
+
+        int required = clamp(peakGap * 2D);
+        int target = this.target;
+
+        if (lastUnderflows >= 0L && underflows > lastUnderflows) {
+            target = Math.max(clamp(target * 1.5D), required);
+            lastDecision = "grow (underflow)";
+        } else if (required > target) {
+            target = required;
+            lastDecision = "grow (lateness)";
+        } else if (now - lastChange >= quietNanos && target > required) {
+            target = Math.max(required, clamp(target - target / 8D));
+            lastDecision = "shrink (quiet)";
+        }
+
+        lastUnderflows = underflows;
+
+        if (target != this.target) {
+            if (target > this.target) grows ++;
+            else shrinks ++;
+
+            this.target = target;
+            lastChange = now;
+        } else if (required >= target) {
+            // Holding at what lateness requires counts as busy, not quiet
+            lastChange = now;
+        }
+    }
+
+    /**
+     * Forgets the time of the last pass, e.g. when the mixer stops, so idle time isn't mistaken for lateness.
+     */
+    public void pause() {
+        lastPass = -1L;
+    }
+
+    /**
+     * Gets the current in-flight buffer target.
+     * @return target, in samples.
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    public int getMinimum() {
+        return minimum;
+    }
+
+    public int getMaximum() {
+        return maximum;
+    }
+
+    public long getGrows() {
+        return grows;
+    }
+
+    public long getShrinks() {
+        return shrinks;
+    }
+
+    public String getLastDecision() {
+        return lastDecision;
+    }
+
+    private double toMillis(double samples) {
+        return samples / samplesPerNanosecond / 1_000_000D;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.0fms (%.0f-%.0fms), peak gap %.1fms, %d grow(s), %d shrink(s), last: %s",
+                toMillis(target), toMillis(minimum), toMillis(maximum), toMillis(peakGap),
+                grows, shrinks, lastDecision);
+    }
+}
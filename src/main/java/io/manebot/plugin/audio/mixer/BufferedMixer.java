@@ -2,44 +2,181 @@ package io.manebot.plugin.audio.mixer;
 
 import io.manebot.plugin.audio.Audio;
 import io.manebot.plugin.audio.mixer.filter.Filter;
+import io.manebot.plugin.audio.mixer.filter.FilterChain;
 import io.manebot.plugin.audio.mixer.filter.MultiChannelFilter;
+import io.manebot.plugin.audio.mixer.filter.Parameter;
 import io.manebot.plugin.audio.mixer.input.MixerChannel;
+import io.manebot.plugin.audio.mixer.output.AudioFrame;
+import io.manebot.plugin.audio.mixer.output.AudioFramePool;
 import io.manebot.plugin.audio.mixer.output.MixerSink;
 
 import java.io.EOFException;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class BufferedMixer extends AbstractMixer {
-    private final float[] buffer, mixBuffer;
+    // Blocks with fewer channels than this are rendered on the processing thread alone; forking isn't worth it
+    private static final int minimumParallelChannels = 4;
+
+    private final float[] mixBuffer, dryBuffer;
+    private final AudioFramePool framePool = new AudioFramePool();
     private final float[][] filterBuffer;
+    private final List<MixerChannel> startingChannels = new ArrayList<>();
+    private AdaptiveLatency adaptiveLatency;
+
+    // Parallel rendering; slots, groups and reduction trees are reused from block to block (processing thread only)
+    private volatile ForkJoinPool renderPool;
+    private final List<ChannelSlot> slots = new ArrayList<>(), ordered = new ArrayList<>();
+    private final List<Bus> groupBuses = new ArrayList<>(); // Where each group is summed into; null for the master
+    private int[] groupEnds = new int[4]; // End of each group in ordered; a group starts where the last one ends
+    private final List<Reduction> reductions = new ArrayList<>(); // Tree nodes, handed out in order each block
+    private int usedReductions = 0;
+    private final List<Reduction> roots = new ArrayList<>(); // One tree per group
+    private final RecursiveAction renderBlock = new RecursiveAction() {
+        @Override
+        protected void compute() {
+            invokeAll(roots);
+        }
+    };
 
-    private boolean filtering = true;
-    private long position = 0L;
+    // Filtering is cross-faded in and out; filters are reset on the audio thread once faded out
+    private final Parameter filtering;
+    private boolean filtersDirty = false;
+    private volatile long position = 0L;
 
     public BufferedMixer(Audio audio, String id,
                     MixerRegistrant registrant,
                     int bufferSize, float audioSampleRate, int audioChannels) {
         super(audio, id, registrant, bufferSize, audioSampleRate, audioChannels);
 
-        this.buffer = new float[bufferSize];
         this.mixBuffer = new float[bufferSize];
+        this.dryBuffer = new float[bufferSize];
         this.filterBuffer = new float[audioChannels][];
         for (int ch = 0; ch < audioChannels; ch ++)
             this.filterBuffer[ch] = new float[bufferSize / audioChannels];
+
+        this.filtering = new Parameter(audioSampleRate, 1f);
+    }
+
+    /**
+     * Makes this mixer adapt its in-flight buffer, up to its buffer size.
+     * @param adaptiveLatency latency controller, or null to use the whole buffer.
+     */
+    public void setAdaptiveLatency(AdaptiveLatency adaptiveLatency) {
+        if (adaptiveLatency != null && adaptiveLatency.getMaximum() > getBufferSize())
+            throw new IllegalArgumentException("adaptive maximum exceeds buffer size");
+
+        this.adaptiveLatency = adaptiveLatency;
+    }
+
+    @Override
+    public AudioFramePool getFramePool() {
+        return framePool;
+    }
+
+    /**
+     * Makes this mixer read its channels in parallel, each into a buffer of its own, and sum them in a tree.  Worth it
+     * for mixers with many channels that are costly to read (decoding, resampling, filtering), so one mixer can use
+     * several cores within its deadline.  Channels are still read one block at a time and never concurrently with
+     * themselves.
+     *
+     * Channels (and whatever their reads call back into, e.g. players and provider listeners) are then read on the
+     * pool's threads while the processing thread waits for them, holding the connection's audio lock.  Anything a
+     * read calls must not take that lock, or wait on the processing thread: the two threads would deadlock.
+     * @param renderPool pool to read channels on, or null to read them on the processing thread.
+     */
+    public void setRenderPool(ForkJoinPool renderPool) {
+        this.renderPool = renderPool;
+    }
+
+    public ForkJoinPool getRenderPool() {
+        return renderPool;
+    }
+
+    @Override
+    public AdaptiveLatency getAdaptiveLatency() {
+        return adaptiveLatency;
+    }
+
+    /**
+     * Holds back what is written to a sink so no more than the adaptive target is queued in it; the rest of the
+     * sink's buffer is left unused.
+     */
+    @Override
+    protected int getAvailableInput(MixerSink sink) {
+        AdaptiveLatency adaptiveLatency = this.adaptiveLatency;
+        int available = sink.availableInput();
+        if (adaptiveLatency == null) return available;
+
+        int unused = sink.getBufferSize() - adaptiveLatency.getTarget();
+        if (unused <= 0) return available;
+
+        available = Math.max(0, available - unused);
+        return available - (available % getAudioChannels());
+    }
+
+    @Override
+    public boolean setRunning(boolean running) {
+        if (!running && adaptiveLatency != null) adaptiveLatency.pause();
+        return super.setRunning(running);
     }
 
     @Override
     public boolean isFiltering() {
-        return filtering;
+        return filtering.getTarget() > 0f;
     }
 
     @Override
     public void setFiltering(boolean enable) {
-        this.filtering = enable;
-        if (!enable) getFilters().forEach(Filter::reset);
+        // Picked up by the audio thread, which fades the filters in or out
+        filtering.set(enable ? 1f : 0f);
+    }
+
+    /**
+     * Runs the mix buffer through the filters, fading between the dry and filtered signal while filtering is being
+     * switched on or off.
+     */
+    private void filter(float[] buffer, int len) {
+        FilterChain filterChain = getFilterChain();
+        int channels = getAudioChannels();
+        int samplesPerChannel = len / channels;
+
+        float from = filtering.getValue(), to = filtering.next(samplesPerChannel);
+
+        if (from <= 0f && to <= 0f) {
+            // Fully off: put the filters back to their initial state, once
+            if (filtersDirty) {
+                getFilters().forEach(Filter::reset);
+                filtersDirty = false;
+            }
+
+            return;
+        }
+
+        // Skipped entirely if every filter is an identity
+        if (filterChain.isEmpty()) return;
+
+        boolean fading = from < 1f || to < 1f;
+        if (fading) System.arraycopy(buffer, 0, dryBuffer, 0, samplesPerChannel * channels);
+
+        filterChain.processInterleaved(buffer, samplesPerChannel * channels, filterBuffer);
+
+        filtersDirty = true;
+
+        if (fading) {
+            float wet = from, step = (to - from) / samplesPerChannel;
+            for (int smp = 0, i = 0; smp < samplesPerChannel; smp++) {
+                wet += step;
+                for (int ch = 0; ch < channels; ch++, i++)
+                    buffer[i] = (dryBuffer[i] * (1f - wet)) + (buffer[i] * wet);
+            }
+        }
     }
 
     @Override
@@ -47,82 +184,478 @@ public class BufferedMixer extends AbstractMixer {
         if (!isPlaying())
             return false;
 
-        // Plan for mixer input, ensuring the available sample count doesn't overflow the mixer
-        int len = Math.min(buffer.length, available());
+        if (adaptiveLatency != null) {
+            long underflows = 0L;
+            for (MixerSink sink : getSinks())
+                if (sink.isRunning()) underflows += sink.getUnderflows();
+
+            adaptiveLatency.observe(underflows);
+        }
+
+        // Plan for mixer input, ensuring the available sample count doesn't overflow the mixer, and that it is made
+        // of whole quanta
+        int len = alignToQuantum(Math.min(getBufferSize(), available()));
 
         // If no samples are ready, we don't bother with this, but we do signal that we must
         // continue playing samples.
         if (len > 0) {
-            if (len > buffer.length)
-                throw new ArrayIndexOutOfBoundsException(len + " > " + buffer.length);
-
-            // Reset main buffer
-            Arrays.fill(buffer, 0, len, 0F);
-
-            Iterator<MixerChannel> channelIterator = getChannels().iterator();
-            MixerChannel channel;
-            while (channelIterator.hasNext()) {
-                channel = channelIterator.next();
-                if (channel == null) continue;
-
-                try {
-                    // Remove if the player is complete, otherwise mix
-                    if (!channel.isPlaying()) {
-                        removeChannel(channel);
-                    } else {
-                        // Read samples from channel
-                        int read = channel.read(mixBuffer, 0, len);
-
-                        // Perform actual mixing
-                        for (int i = 0; i < read; i++)
-                            buffer[i] += mixBuffer[i];
-                    }
-                } catch (EOFException eof) {
-                    removeChannel(channel);
-                } catch (Throwable e) {
-                    Logger.getGlobal().log(Level.SEVERE, "Unexpected problem playing audio on channel", e);
+            if (len > getBufferSize())
+                throw new ArrayIndexOutOfBoundsException(len + " > " + getBufferSize());
+
+            // Render one quantum at a time, so filters see constant block sizes and each sink gets whole blocks at
+            // the start of the buffer
+            int quantum = getQuantum();
+            boolean written = false;
+            for (int rendered = 0; rendered < len; ) {
+                int block = Math.min(len - rendered, quantum - (int) (position % quantum));
+                written |= render(block);
+                rendered += block;
+            }
+
+            // Measure how long newly added channels took to be heard
+            if (written) startingChannels.forEach(this::channelStarted);
+            startingChannels.clear();
+        }
+
+        // Kill the mixer, ensure it stops if necessary after we've processed all the buffers/channels
+        //
+        getFutureChannels().stream()
+                .filter(x -> !x.getChannel().isPlaying() || (x.isEnded() && x.available() <= 0))
+                .forEach(x -> removeChannel(x.getChannel()));
+
+        // Find if the mixer is still playing
+        return isPlaying();
+    }
+
+    /**
+     * Rounds a block down to whole quanta, measured from the mixer's position (so a block that was cut short is
+     * followed by one that realigns).  Shorter blocks are only rendered when a sink would otherwise run dry, e.g. at
+     * the end of a channel that can't fill another quantum.
+     * @param len samples available.
+     * @return samples to render.
+     */
+    private int alignToQuantum(int len) {
+        int quantum = getQuantum();
+        if (len <= 0 || quantum <= getAudioChannels()) return len;
+
+        int head = (int) ((quantum - (position % quantum)) % quantum);
+        if (len >= head) {
+            int aligned = head + (((len - head) / quantum) * quantum);
+            if (aligned > 0) return aligned;
+        }
+
+        return isStarving(quantum) ? len : 0;
+    }
+
+    /**
+     * Finds if any sink pacing this mixer has less than the given amount queued.
+     */
+    private boolean isStarving(int samples) {
+        boolean critical = getSinks().stream().anyMatch(x -> x.isRunning() && x.isCritical());
+
+        for (MixerSink sink : getSinks())
+            if (sink.isRunning() && sink.isCritical() == critical &&
+                    sink.getBufferSize() - sink.availableInput() < samples)
+                return true;
+
+        return false;
+    }
+
+    /**
+     * Reads each channel of a block in turn, and sums it into its bus (or the master).
+     */
+    private void renderSequential(List<FutureChannel> futureChannels, Collection<Bus> buses, float[] buffer, int len) {
+        MixerChannel channel;
+        Bus bus;
+        float[] target;
+        int jitter = getJitterBufferSize();
+        int offset;
+        for (FutureChannel futureChannel : futureChannels) {
+            channel = futureChannel.getChannel();
+            if (channel == null) continue;
+
+            bus = getTargetBus(futureChannel, buses);
+            target = bus != null ? bus.getBuffer() : buffer;
+
+            try {
+                // Remove if the player is complete, otherwise mix
+                if (!channel.isPlaying()) {
                     removeChannel(channel);
+                    continue;
                 }
+
+                // Channels scheduled to start within this block are mixed from their start onwards
+                offset = getStartOffset(futureChannel, len);
+                if (offset >= len) continue; // Scheduled to start after this block
+
+                int read = readChannel(futureChannel, mixBuffer, 0, len - offset, jitter);
+
+                // Perform actual mixing
+                for (int i = 0; i < read; i++)
+                    target[offset + i] += mixBuffer[i];
+
+                channelRead(futureChannel, bus, read);
+            } catch (EOFException eof) {
+                removeChannel(channel);
+            } catch (Throwable e) {
+                Logger.getGlobal().log(Level.SEVERE, "Unexpected problem playing audio on channel", e);
+                removeChannel(channel);
             }
+        }
+    }
 
-            // Manipulate audio based on filters
-            if (filtering) {
-                int channels = getAudioChannels();
-                int samplesPerChannel = len / channels;
-                for (int ch = 0; ch < channels; ch++) {
-                    for (int smp = 0; smp < samplesPerChannel; smp++) {
-                        filterBuffer[ch][smp] = buffer[(smp * channels) + ch];
-                    }
+    /**
+     * Reads the channels of a block in parallel, each into a slot of its own, then sums the slots of each bus (and
+     * of the master) pairwise in a tree.  Removing channels and the rest of the bookkeeping stays on the processing
+     * thread, which waits for the pool while holding the audio lock (see {@link #setRenderPool(ForkJoinPool)}).
+     */
+    private void renderParallel(ForkJoinPool renderPool, List<FutureChannel> futureChannels,
+                                Collection<Bus> buses, float[] buffer, int len) {
+        int jitter = getJitterBufferSize();
+
+        // Channels that are playing and have started, grouped by where they are summed into
+        int used = 0;
+        for (FutureChannel futureChannel : futureChannels) {
+            MixerChannel channel = futureChannel.getChannel();
+            if (channel == null) continue;
+
+            try {
+                if (!channel.isPlaying()) {
+                    removeChannel(channel);
+                    continue;
                 }
+            } catch (Throwable e) {
+                Logger.getGlobal().log(Level.SEVERE, "Unexpected problem playing audio on channel", e);
+                removeChannel(channel);
+                continue;
+            }
+
+            int offset = getStartOffset(futureChannel, len);
+            if (offset >= len) continue; // Scheduled to start after this block
+
+            if (used == slots.size()) slots.add(new ChannelSlot(getBufferSize()));
+            ChannelSlot slot = slots.get(used ++);
+            slot.set(futureChannel, offset, len, jitter);
+
+            Bus bus = getTargetBus(futureChannel, buses);
+            int group = groupBuses.indexOf(bus);
+            if (group < 0) {
+                group = groupBuses.size();
+                groupBuses.add(bus);
+            }
+
+            slot.group = group;
+        }
+
+        if (used == 0) return;
+
+        // Lay the slots out group by group (a counting sort), so each group is a range of ordered
+        int groups = groupBuses.size();
+        if (groupEnds.length < groups) groupEnds = new int[groups * 2];
+        Arrays.fill(groupEnds, 0, groups, 0);
+
+        for (int i = 0; i < used; i ++) groupEnds[slots.get(i).group] ++;
+        for (int group = 0, start = 0, count; group < groups; group ++) {
+            count = groupEnds[group];
+            groupEnds[group] = start;
+            start += count;
+        }
+
+        while (ordered.size() < used) ordered.add(null);
+        for (int i = 0; i < used; i ++) {
+            ChannelSlot slot = slots.get(i);
+            ordered.set(groupEnds[slot.group] ++, slot);
+        }
+
+        // Build each group's tree out of the nodes left from earlier blocks
+        usedReductions = 0;
+        for (int group = 0, from = 0; group < groups; from = groupEnds[group ++])
+            roots.add(reduction(from, groupEnds[group]));
+
+        renderBlock.reinitialize();
+        try {
+            renderPool.invoke(renderBlock);
+        } catch (RejectedExecutionException e) {
+            // The pool was shut down since this block began (e.g. replaced on reload); read the channels here instead
+            for (Reduction root : roots) root.renderInline();
+        }
 
-                getFilters().forEach(filter -> filter.process(filterBuffer, 0, samplesPerChannel));
+        // Each tree has summed its group into its first slot
+        for (int group = 0, from = 0; group < groups; from = groupEnds[group ++]) {
+            Bus bus = groupBuses.get(group);
+            float[] target = bus != null ? bus.getBuffer() : buffer;
+            ChannelSlot root = ordered.get(from);
 
-                for (int ch = 0; ch < channels; ch++) {
-                    for (int smp = 0; smp < samplesPerChannel; smp++) {
-                        buffer[(smp * channels) + ch] = filterBuffer[ch][smp];
-                    }
+            if (root.audible)
+                for (int i = 0; i < len; i++)
+                    target[i] += root.samples[i];
+
+            for (int i = from; i < groupEnds[group]; i ++) {
+                ChannelSlot slot = ordered.get(i);
+                MixerChannel channel = slot.futureChannel.getChannel();
+
+                if (slot.error instanceof EOFException) {
+                    removeChannel(channel);
+                } else if (slot.error != null) {
+                    Logger.getGlobal().log(Level.SEVERE, "Unexpected problem playing audio on channel", slot.error);
+                    removeChannel(channel);
+                } else {
+                    channelRead(slot.futureChannel, bus, slot.read);
                 }
+
+                slot.clear();
             }
+        }
 
-            // Write to sinks (only those that are running and can accept these samples, though)
-            // Note that available() will limit "len" to the sink's availability
-            for (MixerSink sink : getSinks())
-                if (sink.isRunning() && sink.availableInput() >= len) sink.write(buffer, len);
+        groupBuses.clear();
+        roots.clear();
+    }
 
-            position += len;
+    /**
+     * Builds the reduction tree for a range of ordered slots, reusing nodes from earlier blocks.
+     */
+    private Reduction reduction(int from, int to) {
+        if (usedReductions == reductions.size()) reductions.add(new Reduction(ordered));
+        Reduction reduction = reductions.get(usedReductions ++);
+
+        if (to - from == 1) {
+            reduction.set(from, null, null);
+        } else {
+            int middle = (from + to) >>> 1;
+            reduction.set(from, reduction(from, middle), reduction(middle, to));
         }
 
-        // Kill the mixer, ensure it stops if necessary after we've processed all the buffers/channels
-        //
-        getChannels().stream().filter(x -> !x.isPlaying()).forEach(this::removeChannel);
+        return reduction;
+    }
 
-        // Find if the mixer is still playing
-        return isPlaying();
+    /**
+     * Gets the bus a channel is summed into for this block, or null for the master (including channels on a bus
+     * created since the block began).
+     */
+    private static Bus getTargetBus(FutureChannel futureChannel, Collection<Bus> buses) {
+        Bus bus = futureChannel.getBus();
+        return bus != null && buses.contains(bus) ? bus : null;
+    }
+
+    /**
+     * Gets where in a block, starting at the mixer's position, a channel starts; the block length if the channel
+     * starts after it.
+     */
+    private int getStartOffset(FutureChannel futureChannel, int len) {
+        return (int) Math.max(0L, Math.min(len, futureChannel.getStartPosition() - position));
+    }
+
+    /**
+     * Reads a channel's share of a block.  Safe to call off the processing thread, as long as a channel is only read
+     * by one thread at a time.
+     * @return samples read; the rest of the block stays silent for this channel.
+     */
+    private static int readChannel(FutureChannel futureChannel, float[] buffer, int offs, int len, int jitter)
+            throws IOException {
+        if (!futureChannel.getUnderrunPolicy().isStrict())
+            // Mix what is ready
+            return futureChannel.readTolerant(buffer, offs, len, jitter);
+        else if (futureChannel.isSignalling() && futureChannel.available() <= 0)
+            // Nothing to offer, which available() only lets through for channels that have ended: don't call into
+            // the channel
+            return 0;
+        else
+            return futureChannel.read(buffer, offs, len);
+    }
+
+    /**
+     * Keeps track of a channel once it has been read for a block, dropping it if it has starved or ended.
+     * Processing thread only.
+     */
+    private void channelRead(FutureChannel futureChannel, Bus bus, int read) {
+        MixerChannel channel = futureChannel.getChannel();
+
+        if (read > 0) {
+            if (bus != null) bus.markActive();
+            if (hasPendingStarts()) startingChannels.add(channel);
+        }
+
+        if (futureChannel.isStarved()) {
+            Logger.getGlobal().fine("Dropping starved channel from mixer " + getId() + ": " + channel.getName());
+            removeChannel(channel);
+        } else if (futureChannel.isEnded() && futureChannel.available() <= 0) {
+            removeChannel(channel);
+        }
+    }
+
+    /**
+     * Mixes and filters one block into a frame, and publishes the frame to the sinks.
+     * @param len block size, in samples.
+     * @return true if any sink was written to.
+     */
+    private boolean render(int len) {
+        // Reset main buffer, and the buses
+        AudioFrame frame = framePool.acquire(len);
+        float[] buffer = frame.getSamples();
+        Arrays.fill(buffer, 0, len, 0F);
+
+        Collection<Bus> buses = getBuses();
+        for (Bus bus : buses) bus.begin(len);
+
+        List<FutureChannel> futureChannels = getFutureChannels();
+        ForkJoinPool renderPool = this.renderPool;
+        if (renderPool != null && !renderPool.isShutdown() && futureChannels.size() >= minimumParallelChannels)
+            renderParallel(renderPool, futureChannels, buses, buffer, len);
+        else
+            renderSequential(futureChannels, buses, buffer, len);
+
+        // Sum the buses into the master, once they have all been rendered (ducking depends on their activity)
+        for (Bus each : buses)
+            each.mixInto(buffer, len, filterBuffer);
+
+        // Manipulate audio based on filters
+        filter(buffer, len);
+
+        // Write to sinks (only those that are running and can accept these samples, though)
+        // Note that available() will limit the block to the critical sinks' availability; non-critical sinks take
+        // every write, dropping what they can't keep up with.  Sinks needing the samples later retain the frame.
+        boolean written = false;
+        try {
+            for (MixerSink sink : getSinks())
+                if (sink.isRunning() && (!sink.isCritical() || sink.availableInput() >= len)) {
+                    sink.write(frame);
+                    written = true;
+                }
+        } finally {
+            frame.release();
+        }
+
+        position += len;
+
+        return written;
+    }
+
+    /**
+     * Gets the jitter buffer size for channels tolerating underruns, in whole frames.
+     */
+    private int getJitterBufferSize() {
+        int frames = (int) (getAudioSampleRate() * getAudio().getJitterBufferTime() / 1000L);
+        return frames * getAudioChannels();
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
     }
 
     @Override
     public float getPositionInSeconds() {
-        return (float)position / (float)(getAudioChannels() * getAudioSampleRate());
+        return (float) ((double) position / (double) (getAudioChannels() * getAudioSampleRate()));
+    }
+
+    /**
+     * One channel's share of a block rendered in parallel.
+     */
+    private static final class ChannelSlot {
+        private final float[] samples;
+
+        private FutureChannel futureChannel;
+        private int offset, len, jitter;
+        private int group; // Index of the group the slot is summed with
+
+        // Results, read back on the processing thread once the block is rendered
+        private int read;
+        private boolean audible;
+        private Throwable error;
+
+        private ChannelSlot(int bufferSize) {
+            this.samples = new float[bufferSize];
+        }
+
+        private void set(FutureChannel futureChannel, int offset, int len, int jitter) {
+            this.futureChannel = futureChannel;
+            this.offset = offset;
+            this.len = len;
+            this.jitter = jitter;
+        }
+
+        /**
+         * Reads the channel into this slot, padded with silence to the whole block.
+         */
+        private void render() {
+            read = 0;
+            error = null;
+
+            try {
+                read = readChannel(futureChannel, samples, offset, len - offset, jitter);
+            } catch (Throwable e) {
+                error = e;
+            }
+
+            audible = read > 0;
+            Arrays.fill(samples, 0, offset, 0F);
+            Arrays.fill(samples, offset + read, len, 0F);
+        }
+
+        private void clear() {
+            futureChannel = null;
+            error = null;
+        }
+    }
+
+    /**
+     * Renders a range of slots, and sums them into the first slot of the range, splitting the range in two until
+     * single slots are left.  Nodes are reinitialized and reused from block to block.
+     */
+    private static final class Reduction extends RecursiveAction {
+        private final List<ChannelSlot> slots;
+        private int from;
+        private Reduction left, right; // Halves of the range; null for a single slot
+
+        private Reduction(List<ChannelSlot> slots) {
+            this.slots = slots;
+        }
+
+        private void set(int from, Reduction left, Reduction right) {
+            this.from = from;
+            this.left = left;
+            this.right = right;
+            reinitialize();
+        }
+
+        @Override
+        protected void compute() {
+            if (left == null) {
+                slots.get(from).render();
+                return;
+            }
+
+            invokeAll(left, right);
+            combine();
+        }
+
+        /**
+         * Renders the range on the calling thread, for when the pool can't take it.
+         */
+        private void renderInline() {
+            if (left == null) {
+                slots.get(from).render();
+                return;
+            }
+
+            left.renderInline();
+            right.renderInline();
+            combine();
+        }
+
+        private void combine() {
+            ChannelSlot into = slots.get(from), other = slots.get(right.from);
+            if (!other.audible) return;
+
+            int len = into.len;
+            if (into.audible) {
+                for (int i = 0; i < len; i ++)
+                    into.samples[i] += other.samples[i];
+            } else {
+                System.arraycopy(other.samples, 0, into.samples, 0, len);
+                into.audible = true;
+            }
+        }
     }
 
     public static class Builder implements Mixer.Builder {
@@ -134,6 +667,9 @@ public class BufferedMixer extends AbstractMixer {
 
         private MixerRegistrant registrant;
         private Float bufferTime;
+        private Float minimumBufferTime;
+        private Float quantumTime;
+        private ForkJoinPool renderPool;
         private Float sampleRate;
         private Integer channels;
 
@@ -164,6 +700,25 @@ public class BufferedMixer extends AbstractMixer {
             return this;
         }
 
+        @Override
+        public Builder setAdaptiveBufferTime(float minimumSeconds, float maximumSeconds) {
+            minimumBufferTime = minimumSeconds;
+            bufferTime = maximumSeconds;
+            return this;
+        }
+
+        @Override
+        public Builder setQuantumTime(float seconds) {
+            quantumTime = seconds;
+            return this;
+        }
+
+        @Override
+        public Builder setRenderPool(ForkJoinPool renderPool) {
+            this.renderPool = renderPool;
+            return this;
+        }
+
         @Override
         public Builder setFormat(float sampleRate, int channels) {
             this.sampleRate = sampleRate;
@@ -203,6 +758,16 @@ public class BufferedMixer extends AbstractMixer {
 
             BufferedMixer mixer = new BufferedMixer(audio, id, registrant, samples, sampleRate, channels);
 
+            if (minimumBufferTime != null) {
+                int minimum = Math.round(sampleRate * Math.min(minimumBufferTime, bufferTime)) * channels;
+                mixer.setAdaptiveLatency(new AdaptiveLatency(sampleRate, channels, minimum, samples));
+            }
+
+            if (quantumTime != null)
+                mixer.setBlockSize(Math.round(sampleRate * quantumTime) * channels);
+
+            mixer.setRenderPool(renderPool);
+
             for (MixerSink sink : sinks)
                 mixer.addSink(sink);
 
@@ -0,0 +1,199 @@
+package io.manebot.plugin.audio.mixer;
+
+import io.manebot.plugin.audio.mixer.filter.FilterChain;
+import io.manebot.plugin.audio.mixer.filter.MultiChannelFilter;
+import io.manebot.plugin.audio.mixer.filter.Parameter;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A named group of channels within a mixer (e.g. "music", "voice").  Channels added to a bus are summed into the bus
+ * first; the bus runs its own filters over the sum, applies its gain, and adds the result to the mixer's master
+ * buffer, in the same processing pass.
+ *
+ * A bus may be ducked under another: while the other bus has anything playing, this bus is brought down to its
+ * ducked gain.
+ */
+public class Bus {
+    private static final float duckRampTimeInSeconds = 0.15f;
+
+    private final Mixer mixer;
+    private final String name;
+    private final int channels;
+
+    private final List<MultiChannelFilter> filters = Collections.synchronizedList(new LinkedList<>());
+    private final FilterChain filterChain;
+    private final Parameter gain, duck;
+
+    private volatile Bus duckUnder;
+    private volatile float duckedGain = 1f;
+    private volatile boolean active = false, removed = false;
+
+    // Processing thread only
+    private final float[] buffer;
+
+    Bus(Mixer mixer, String name, int bufferSize) {
+        this.mixer = mixer;
+        this.name = name;
+        this.channels = mixer.getAudioChannels();
+
+        this.buffer = new float[bufferSize];
+        this.filterChain = new FilterChain(filters, channels);
+        this.gain = new Parameter(mixer.getAudioSampleRate(), 1f);
+        this.duck = new Parameter(mixer.getAudioSampleRate(), duckRampTimeInSeconds, 1f);
+    }
+
+    public Mixer getMixer() {
+        return mixer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets an immutable list of filters on this bus.
+     * @return Bus filters
+     */
+    public Collection<MultiChannelFilter> getFilters() {
+        return Collections.unmodifiableCollection(filters);
+    }
+
+    public MultiChannelFilter addFilter(MultiChannelFilter filter) {
+        if (filter.getChannels() != channels)
+            throw new IllegalArgumentException("invalid filter count: channel mismatch");
+
+        filters.add(filter);
+        filterChain.invalidate();
+        return filter;
+    }
+
+    public boolean removeFilter(MultiChannelFilter filter) {
+        if (filters.remove(filter)) {
+            filterChain.invalidate();
+            return true;
+        } else return false;
+    }
+
+    public float getGain() {
+        return gain.getTarget();
+    }
+
+    /**
+     * Sets the gain of this bus.  The gain ramps to its new value; this does not block the audio thread.
+     * @param gain new gain (1 is unity).
+     */
+    public void setGain(float gain) {
+        if (gain < 0f) throw new IllegalArgumentException("gain < 0");
+        this.gain.set(gain);
+    }
+
+    /**
+     * Ducks this bus under another: while the other bus is active, this bus plays at the ducked gain (on top of its
+     * own gain).
+     * @param bus bus to duck under, on the same mixer; null to stop ducking.
+     * @param duckedGain gain while ducked.
+     */
+    public void setDucking(Bus bus, float duckedGain) {
+        if (bus == this) throw new IllegalArgumentException("bus can't duck under itself");
+        if (bus != null && bus.getMixer() != mixer) throw new IllegalArgumentException("bus is on another mixer");
+        if (duckedGain < 0f) throw new IllegalArgumentException("duckedGain < 0");
+
+        this.duckedGain = duckedGain;
+        this.duckUnder = bus;
+    }
+
+    public Bus getDuckingBus() {
+        return duckUnder;
+    }
+
+    public float getDuckedGain() {
+        return duckedGain;
+    }
+
+    /**
+     * Finds if any channel on this bus was heard in the last block rendered.
+     * @return true if active.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Finds if this bus was removed from its mixer; channels still routed to it are mixed into the master instead.
+     * @return true if removed.
+     */
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    void setRemoved() {
+        this.removed = true;
+    }
+
+    /**
+     * Clears the bus for a new block.  Processing thread only.
+     * @param len length of the block, in samples.
+     */
+    void begin(int len) {
+        Arrays.fill(buffer, 0, len, 0F);
+        active = false;
+    }
+
+    /**
+     * Gets the bus buffer, for channels to be summed into.  Processing thread only.
+     * @return bus buffer.
+     */
+    float[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Marks the bus as having been heard this block.  Processing thread only.
+     */
+    void markActive() {
+        active = true;
+    }
+
+    /**
+     * Filters the bus and adds it to the master buffer, ramping its gain across the block.  Processing thread only;
+     * every bus must have been rendered first, so ducking sees this block's activity.
+     * @param master buffer to add to.
+     * @param len length of the block, in samples.
+     * @param scratch per-channel scratch buffers for the filters.
+     */
+    void mixInto(float[] master, int len, float[][] scratch) {
+        Bus duckUnder = this.duckUnder;
+        duck.set(duckUnder != null && !duckUnder.isRemoved() && duckUnder.isActive() ? duckedGain : 1f);
+
+        if (!filterChain.isEmpty())
+            filterChain.processInterleaved(buffer, len, scratch);
+
+        int frames = len / channels;
+        float from = gain.getValue() * duck.getValue();
+        float to = gain.next(frames) * duck.next(frames);
+
+        if (from == to) {
+            if (to == 0f) return;
+
+            for (int i = 0; i < len; i ++)
+                master[i] += buffer[i] * to;
+        } else {
+            float level = from, step = (to - from) / frames;
+            for (int smp = 0, i = 0; smp < frames; smp ++) {
+                level += step;
+                for (int ch = 0; ch < channels; ch ++, i ++)
+                    master[i] += buffer[i] * level;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
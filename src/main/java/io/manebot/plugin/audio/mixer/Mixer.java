@@ -7,13 +7,20 @@ import io.manebot.plugin.audio.mixer.filter.MuxedMultiChannelFilter;
 import io.manebot.plugin.audio.mixer.filter.SingleChannelFilter;
 import io.manebot.plugin.audio.mixer.input.AudioProvider;
 import io.manebot.plugin.audio.mixer.input.MixerChannel;
+import io.manebot.plugin.audio.mixer.input.ResampledChannelGroup;
+import io.manebot.plugin.audio.mixer.output.AdaptedMixerSink;
+import io.manebot.plugin.audio.mixer.output.AsyncMixerSink;
+import io.manebot.plugin.audio.mixer.output.AudioFramePool;
 import io.manebot.plugin.audio.mixer.output.MixerSink;
+import io.manebot.plugin.audio.util.LatencyStatistics;
 
 import javax.sound.sampled.AudioFormat;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -37,6 +44,18 @@ public interface Mixer {
     boolean addSink(MixerSink sink);
     boolean removeSink(MixerSink sink);
 
+    /**
+     * Adds a sink to the mixer, converting to its sample rate and channel count (see {@link AdaptedMixerSink}) if
+     * they differ from the mixer's.
+     * @param sink sink to add.
+     * @return the sink added to the mixer: the sink itself, or the adapter feeding it.
+     */
+    default MixerSink addAdaptedSink(MixerSink sink) {
+        MixerSink adapted = AdaptedMixerSink.adapt(sink, getAudioFormat(), getAudio().getResamplerFactory());
+        addSink(adapted);
+        return adapted;
+    }
+
     /**
      * Gets the registrant of the mixer.
      * @return Mixer registrant.
@@ -50,12 +69,57 @@ public interface Mixer {
     Collection<MixerChannel> getChannels();
 
     /**
-     * Adds a channel to the mixer.
+     * Adds a channel to the mixer.  A channel at another format than the mixer's is mixed with the other channels at
+     * its format first, and resampled together with them (see {@link ResampledChannelGroup}).
      * @param channel channel to add.
      * @return a CompletableFuture, which is completed when the channel is removed from the mixer (e.g. stopped)
      */
     CompletableFuture<MixerChannel> addChannel(MixerChannel channel);
 
+    /**
+     * Adds a channel to the mixer, on a bus.
+     * @param channel channel to add.
+     * @param bus bus of this mixer to mix the channel into, or null to mix it into the master directly.
+     * @return a CompletableFuture, which is completed when the channel is removed from the mixer (e.g. stopped)
+     */
+    CompletableFuture<MixerChannel> addChannel(MixerChannel channel, Bus bus);
+
+    /**
+     * Adds a channel to the mixer, starting it at an exact sample position: the channel is first read for the block
+     * covering that position, and its first sample lands on it.  Until then, the channel neither plays nor holds the
+     * mixer back.
+     * @param channel channel to add.
+     * @param startPosition mixer position (see {@link #getPosition()}) to start the channel at, rounded down to a
+     *                      whole frame.  A position already passed starts the channel at once.
+     * @return a CompletableFuture, which is completed when the channel is removed from the mixer (e.g. stopped)
+     */
+    default CompletableFuture<MixerChannel> addChannel(MixerChannel channel, long startPosition) {
+        return addChannel(channel, null, startPosition);
+    }
+
+    /**
+     * Adds a channel to the mixer, on a bus, starting it at an exact sample position.
+     * @param channel channel to add.
+     * @param bus bus of this mixer to mix the channel into, or null to mix it into the master directly.
+     * @param startPosition mixer position (see {@link #getPosition()}) to start the channel at.
+     * @return a CompletableFuture, which is completed when the channel is removed from the mixer (e.g. stopped)
+     * @see #addChannel(MixerChannel, long)
+     */
+    CompletableFuture<MixerChannel> addChannel(MixerChannel channel, Bus bus, long startPosition);
+
+    /**
+     * Adds a channel to the mixer, starting it a given time of mixed audio from now (the mixer's current
+     * {@link #getPosition() position}).  The offset is converted to whole frames and added to the position in
+     * samples, so the start stays sample-accurate however long the mixer has been running.
+     * @param channel channel to add.
+     * @param seconds time from now to start the channel at, in seconds.
+     * @return a CompletableFuture, which is completed when the channel is removed from the mixer (e.g. stopped)
+     */
+    default CompletableFuture<MixerChannel> addChannelAfter(MixerChannel channel, double seconds) {
+        if (seconds < 0D) throw new IllegalArgumentException("seconds < 0");
+        return addChannel(channel, getPosition() + Math.round(seconds * getAudioSampleRate()) * getAudioChannels());
+    }
+
     /**
      * Removes an existing channel from the mixer.
      * @param channel channel to remove.
@@ -63,6 +127,35 @@ public interface Mixer {
      */
     boolean removeChannel(MixerChannel channel);
 
+    /**
+     * Gets an immutable list of the buses in the mixer.
+     * @return Mixer buses
+     */
+    Collection<Bus> getBuses();
+
+    /**
+     * Finds a bus by name.
+     * @param name bus name.
+     * @return bus, or null if there is no such bus.
+     */
+    default Bus getBus(String name) {
+        return getBuses().stream().filter(bus -> bus.getName().equals(name)).findFirst().orElse(null);
+    }
+
+    /**
+     * Creates a new, empty bus on the mixer.
+     * @param name bus name, unique within the mixer.
+     * @return Bus instance.
+     */
+    Bus createBus(String name);
+
+    /**
+     * Removes a bus from the mixer.  Channels still on the bus are mixed into the master from then on.
+     * @param bus bus to remove.
+     * @return true if the bus was removed, false otherwise.
+     */
+    boolean removeBus(Bus bus);
+
     /**
      * Gets an immutable list of filters in the mixer.
      * @return Mixer filters
@@ -119,6 +212,83 @@ public interface Mixer {
      */
     void empty();
 
+    /**
+     * Sets the listener called when one of this mixer's sinks signals demand for more samples.
+     * @param listener demand listener, or null to clear it.
+     */
+    default void setDemandListener(Consumer<Mixer> listener) {
+        // Not signalled by default
+    }
+
+    /**
+     * Sets the listener called when this mixer becomes active, i.e. a channel is added to an empty mixer.  A mixer
+     * stays active until its processor finds it neither playing nor running.  The listener is also called when the
+     * mixer's sinks are started or stopped, so the processor can pick it up, or let it go, without waiting for a tick.
+     * @param listener activity listener, or null to clear it.
+     */
+    default void setActivityListener(Consumer<Mixer> listener) {
+        // Not signalled by default
+    }
+
+    /**
+     * Gets statistics on the time from a channel being added with {@link #addChannel} to its first samples being
+     * written to a sink.
+     * @return start latency statistics, or null if they are not measured.
+     */
+    default LatencyStatistics getStartLatency() {
+        return null;
+    }
+
+    /**
+     * Gets the number of times channels on this mixer that tolerate underruns (see
+     * {@link MixerChannel#getUnderrunPolicy()}) have run dry and been padded with silence.
+     * @return underrun count.
+     */
+    default long getChannelUnderruns() {
+        return 0L;
+    }
+
+    /**
+     * Gets the render quantum of this mixer: every block it renders is a multiple of this, except where a sink would
+     * otherwise run dry.
+     * @return quantum, in samples (whole frames).
+     */
+    default int getQuantum() {
+        return getAudioChannels();
+    }
+
+    /**
+     * Gets the pool the frames this mixer publishes to its sinks are drawn from.
+     * @return frame pool, or null if this mixer doesn't publish frames.
+     */
+    default AudioFramePool getFramePool() {
+        return null;
+    }
+
+    /**
+     * Gets the controller sizing this mixer's in-flight buffer, if the mixer adapts its latency.
+     * @return adaptive latency controller, or null if the buffer is fixed.
+     */
+    default AdaptiveLatency getAdaptiveLatency() {
+        return null;
+    }
+
+    /**
+     * Finds if this mixer is driven by demand from its sinks, i.e. it has running sinks and all of them signal demand.
+     * @return true if demand-driven, false if the mixer must be polled.
+     */
+    default boolean isDemandDriven() {
+        return false;
+    }
+
+    /**
+     * Takes (clears) demand signalled since the last call.
+     * @return true if any sink signalled demand.
+     */
+    default boolean takeDemand() {
+        return true;
+    }
+
     /**
      * Processes the mixer buffer.
      * @return true if there are more processes to execute, false otherwise.
@@ -137,6 +307,16 @@ public interface Mixer {
      */
     float getPositionInSeconds();
 
+    /**
+     * Gets the position of the mixer, in samples (counting each channel of a frame).  This is the position the next
+     * rendered block starts at.  Mixers that schedule channels must track it exactly; by default, it is derived from
+     * {@link #getPositionInSeconds()}, which is only approximate.
+     * @return Mixer position in samples.
+     */
+    default long getPosition() {
+        return (long) Math.floor((double) getPositionInSeconds() * getAudioSampleRate()) * getAudioChannels();
+    }
+
     /**
      * Gets the sample rate of this mixer, which all sinks and channels must conform to.
      * @return Sample rate
@@ -185,6 +365,41 @@ public interface Mixer {
          */
         Builder setBufferTime(float seconds);
 
+        /**
+         * Makes the mixer adapt its in-flight buffer to observed lateness and underflows, within bounds (see
+         * {@link AdaptiveLatency}).  The buffer is allocated at the maximum.  Mixers that don't adapt their latency
+         * use a fixed buffer of the maximum.
+         * @param minimumSeconds smallest in-flight buffer, in seconds.
+         * @param maximumSeconds largest in-flight buffer, in seconds.
+         * @return Builder instance.
+         */
+        default Builder setAdaptiveBufferTime(float minimumSeconds, float maximumSeconds) {
+            return setBufferTime(maximumSeconds);
+        }
+
+        /**
+         * Sets a block length the mixer renders in multiples of, in addition to the block sizes of its sinks (see
+         * {@link MixerSink#getBlockSize()}), e.g. 10ms.  This is a hint: mixers that don't render in fixed blocks
+         * ignore it.
+         * @param seconds block length, in seconds.
+         * @return Builder instance.
+         */
+        default Builder setQuantumTime(float seconds) {
+            return this;
+        }
+
+        /**
+         * Sets a pool to read the mixer's channels on in parallel, for mixers with many channels.  This is an
+         * optimization only: mixers that can't render in parallel read their channels on their own thread.  Channels
+         * read on the pool must not call back into anything that takes the connection's audio lock, which the
+         * processing thread holds while it waits for them.
+         * @param renderPool pool to read channels on, or null to read them on the mixer's own thread.
+         * @return Builder instance.
+         */
+        default Builder setRenderPool(ForkJoinPool renderPool) {
+            return this;
+        }
+
         /**
          * Sets the native format of this mixer.
          * @param sampleRate sample rate.
@@ -212,6 +427,28 @@ public interface Mixer {
          */
         Builder addSink(MixerSink sink);
 
+        /**
+         * Adds a sink to the mixer, converting to its sample rate and channel count (see {@link AdaptedMixerSink}) if
+         * they differ from the mixer's.  The mixer's format must be set first.
+         * @param sink sink to add.
+         * @return Builder instance.
+         */
+        default Builder addAdaptedSink(MixerSink sink) {
+            return addSink(AdaptedMixerSink.adapt(sink, AudioProvider.getFormat(getSampleRate(), getChannels()),
+                    getAudio().getResamplerFactory()));
+        }
+
+        /**
+         * Adds a sink to the mixer, decoupled by an {@link AsyncMixerSink} so that it can't hold the mixer back.
+         * @param sink sink to add.
+         * @param bufferTime length of the decoupling buffer, in seconds.
+         * @return Builder instance.
+         */
+        default Builder addAsyncSink(MixerSink sink, float bufferTime) {
+            int frames = Math.max(1, Math.round(sink.getAudioFormat().getSampleRate() * bufferTime));
+            return addSink(new AsyncMixerSink(sink, frames * sink.getAudioFormat().getChannels()));
+        }
+
         /**
          * Adds default filters
          * @return Builder for continuation.
@@ -1,108 +1,260 @@
 package io.manebot.plugin.audio.mixer;
 
 import io.manebot.plugin.audio.mixer.input.AudioProvider;
+import io.manebot.plugin.audio.util.Fences;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
+/**
+ * Multicasts a single audio provider to any number of readers ("pipes").
+ *
+ * Samples are read from the provider once, into a ring buffer.  Every pipe keeps its own cursor into the ring, so
+ * one slow or stalled reader does not hold back the others; what happens to a pipe that falls a whole ring behind
+ * is decided by its {@link LagPolicy}.  Reads do not take any locks: a pipe that finds itself caught up with the
+ * ring simply tries to advance the provider, and if another pipe is already doing so, it reads what it can.  The
+ * provider itself is only ever called by the pipe advancing it, so it need not be thread-safe.
+ */
 public class SharedAudioProvider implements AutoCloseable {
     private final AudioProvider provider;
+    private final LagPolicy defaultPolicy;
 
-    private final List<Pipe> pipes = new LinkedList<>();
+    private final List<Pipe> pipes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger blockingPipes = new AtomicInteger(0);
+    private final ReentrantLock fillLock = new ReentrantLock();
 
     private final float[] buffer;
 
-    private int length = 0;
+    // Absolute sample positions: "head" is published to readers once samples are in the ring, "claimed" is moved
+    // ahead of any write so readers can tell if the samples they copied were overwritten underneath them.  Fences
+    // keep the ring writes after the claim, and the ring reads before the reader's check of it.
+    private volatile long head = 0L, claimed = 0L;
+    private volatile boolean eof = false;
 
     public SharedAudioProvider(AudioProvider provider, int bufferSize) {
+        this(provider, bufferSize, LagPolicy.SKIP_AHEAD);
+    }
+
+    public SharedAudioProvider(AudioProvider provider, int bufferSize, LagPolicy defaultPolicy) {
+        if (bufferSize <= 0) throw new IllegalArgumentException("bufferSize <= 0");
+
         this.provider = provider;
         this.buffer = new float[bufferSize];
+        this.defaultPolicy = defaultPolicy;
     }
 
+    /**
+     * Finds how many samples may be written to the ring without overwriting anything a blocking pipe hasn't read.
+     */
+    private int writable() {
+        long limit = head + buffer.length;
+
+        if (blockingPipes.get() > 0) {
+            for (Pipe pipe : pipes)
+                if (pipe.policy == LagPolicy.BLOCK)
+                    limit = Math.min(limit, pipe.cursor + buffer.length);
+        }
+
+        return (int) Math.max(0L, limit - head);
+    }
+
+    /**
+     * Finds how many samples the ring may be advanced by.  Fill lock held.
+     */
     private int availableToRead() {
-        return Math.min(buffer.length, provider.available());
+        return Math.min(writable(), provider.available());
     }
 
-    private boolean readyToAdvance() {
-        synchronized (SharedAudioProvider.this) {
-            return pipes.size() > 0 && pipes.stream().allMatch(x -> x.position == length);
+    /**
+     * Finds how many samples the ring may be advanced by, if no other pipe is advancing it (in which case the pipe
+     * has to make do with what is already in the ring).
+     */
+    private int fillable() {
+        if (!fillLock.tryLock()) return 0;
+
+        try {
+            return availableToRead();
+        } finally {
+            fillLock.unlock();
         }
     }
 
-    public AudioProvider open() {
-        synchronized (SharedAudioProvider.this) {
-            Pipe pipe = new Pipe();
-            pipes.add(pipe);
+    /**
+     * Advances the provider into the ring, if no other pipe is doing so already.
+     */
+    private void fill(int len) throws IOException {
+        if (!fillLock.tryLock()) return;
+
+        try {
+            long head = this.head;
+            int offs = (int) (head % buffer.length);
+
+            // Only read up to the end of the ring in a single pass; the rest comes on the next fill.
+            int n = Math.min(Math.min(len, buffer.length - offs), availableToRead());
+            if (n <= 0) return;
+
+            claimed = Math.max(claimed, head + n);
+            Fences.storeFence();
 
-            Logger.getGlobal().fine("Opened pipe on " + getClass().getName() + ": child of " + provider.toString());
-            return pipe;
+            int read;
+            try {
+                read = provider.read(buffer, offs, n);
+            } catch (EOFException ex) {
+                eof = true;
+                claimed = head;
+                return;
+            }
+
+            // Give back the part of the claim the provider didn't fill, so readers aren't held to it
+            claimed = head + Math.max(0, read);
+
+            if (read > 0) {
+                this.head = head + read;
+                Logger.getGlobal().finest("Advanced " + getClass().getName() + " by " + read + " samples");
+            }
+        } finally {
+            fillLock.unlock();
         }
     }
 
+    public AudioProvider open() {
+        return open(defaultPolicy);
+    }
+
+    public AudioProvider open(LagPolicy policy) {
+        Pipe pipe = new Pipe(policy);
+
+        if (policy == LagPolicy.BLOCK) blockingPipes.incrementAndGet();
+        pipes.add(pipe);
+
+        Logger.getGlobal().fine("Opened pipe on " + getClass().getName() + ": child of " + provider.toString());
+        return pipe;
+    }
+
+    public int getPipeCount() {
+        return pipes.size();
+    }
+
     @Override
     public void close() throws Exception {
         provider.close();
     }
 
+    public enum LagPolicy {
+        /**
+         * A pipe that falls a whole ring behind jumps ahead to the newest samples, losing what it missed.
+         */
+        SKIP_AHEAD,
+
+        /**
+         * A pipe that falls a whole ring behind is closed; further reads signal the end of the stream.
+         */
+        DROP,
+
+        /**
+         * The ring never overwrites samples this pipe hasn't read yet, holding back every other pipe if necessary.
+         * This is the lock-step behavior; use it only for readers that must not lose samples.
+         */
+        BLOCK
+    }
+
     public class Pipe implements AudioProvider {
-        private int position;
+        private final LagPolicy policy;
+
+        private volatile long cursor;
+        private volatile boolean closed = false;
         private int underflowed = 0, overflowed = 0;
 
-        public Pipe() {
-            this.position = length;
+        private Pipe(LagPolicy policy) {
+            this.policy = policy;
+            this.cursor = head;
+        }
+
+        /**
+         * Finds if the samples from the current cursor onward are still in the ring, applying the lag policy if not.
+         * @return true if the cursor is still valid.
+         */
+        private boolean checkLag() throws EOFException {
+            if (policy == LagPolicy.BLOCK || cursor >= claimed - buffer.length)
+                return true;
+
+            overflowed++;
+
+            switch (policy) {
+                case DROP:
+                    close();
+                    throw new EOFException("pipe fell behind");
+                case SKIP_AHEAD:
+                default:
+                    cursor = head;
+                    return false;
+            }
+        }
+
+        public LagPolicy getPolicy() {
+            return policy;
         }
 
         @Override
         public int available() {
-            synchronized (SharedAudioProvider.this) {
-                int available = (length - position);
-                if (available <= 0 && readyToAdvance()) return availableToRead();
-                else return available;
-            }
+            if (closed) return 0;
+
+            long available = head - cursor;
+            if (available > 0) return (int) Math.min(available, buffer.length);
+            else if (eof) return 0;
+            else return fillable();
         }
 
         @Override
         public int read(float[] buffer, int offs, int len) throws IOException {
             if (len <= 0) return 0;
             else if (len+offs > buffer.length) throw new ArrayIndexOutOfBoundsException(len);
+            else if (closed) throw new EOFException();
 
-            synchronized (SharedAudioProvider.this) {
-                int available = (length - position);
-
-                if (available <= 0 && readyToAdvance()) {
-                    // Read a new chunk down
-                    length = provider.read(
-                            SharedAudioProvider.this.buffer,
-                            0,
-                            Math.min(SharedAudioProvider.this.buffer.length, provider.available())
-                    );
+            // A pipe that skips ahead gets one more go, from its new cursor
+            for (boolean retry = false; ; retry = true) {
+                if (this.cursor >= head) {
+                    if (eof) throw new EOFException();
 
-                    // Log if the length is positive
-                    if (length > 0)
-                        Logger.getGlobal().fine("Advanced " + getClass().getName() + " by " + length + " samples");
-
-                    // We pulled down new data; reset all pipes to 0
-                    pipes.forEach(x -> x.position = 0);
-                    available = length;
+                    // We've caught up; pull a new chunk down
+                    fill(len);
                 }
 
-                // Calculate what should be read
-                int read = Math.min(available, len);
+                if (!checkLag()) {
+                    if (retry) return 0;
+                    continue;
+                }
 
-                // Do work
-                if (read > 0) {
-                    // Copy to the caller
-                    System.arraycopy(SharedAudioProvider.this.buffer, position, buffer, offs, read);
+                long cursor = this.cursor;
+                int read = (int) Math.min(len, head - cursor);
 
-                    position += read;
-                    return read;
-                } else {
+                if (read <= 0) {
                     // Underflow
                     underflowed++;
                     return 0;
                 }
+
+                // Copy to the caller, wrapping around the end of the ring
+                float[] ring = SharedAudioProvider.this.buffer;
+                int start = (int) (cursor % ring.length);
+                int first = Math.min(read, ring.length - start);
+                System.arraycopy(ring, start, buffer, offs, first);
+                if (first < read) System.arraycopy(ring, 0, buffer, offs + first, read - first);
+
+                // The writer may have lapped us while copying, in which case what we copied is not usable
+                Fences.loadFence();
+                if (!checkLag()) {
+                    if (retry) return 0;
+                    continue;
+                }
+
+                this.cursor = cursor + read;
+                return read;
             }
         }
 
@@ -118,10 +270,13 @@ public class SharedAudioProvider implements AutoCloseable {
 
         @Override
         public void close() {
-            synchronized (SharedAudioProvider.this) {
-                pipes.remove(this);
-                Logger.getGlobal().fine("Closed pipe on SharedAudioProvider for " + provider.toString());
-            }
+            if (closed) return;
+            closed = true;
+
+            if (pipes.remove(this) && policy == LagPolicy.BLOCK)
+                blockingPipes.decrementAndGet();
+
+            Logger.getGlobal().fine("Closed pipe on SharedAudioProvider for " + provider.toString());
         }
 
         public int getUnderflowed() {
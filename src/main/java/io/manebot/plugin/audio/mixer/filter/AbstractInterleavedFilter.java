@@ -0,0 +1,53 @@
+package io.manebot.plugin.audio.mixer.filter;
+
+/**
+ * Base for filters that work natively on interleaved frames.  Per-channel buffers are interleaved into a scratch
+ * buffer, processed and split back out, so these filters can still be used in a chain that isn't fully interleaved.
+ * The scratch buffer is sized up front from the mixer's buffer size where that is known, so the audio thread doesn't
+ * allocate it.
+ */
+public abstract class AbstractInterleavedFilter extends AbstractFilter implements InterleavedFilter {
+    private final int channels;
+    private float[] scratch;
+
+    public AbstractInterleavedFilter(float sampleRate, int channels) {
+        this(sampleRate, channels, 0);
+    }
+
+    /**
+     * @param bufferSize largest block the filter is given, in samples across all channels (e.g. the mixer's buffer
+     *                   size); 0 if unknown, in which case the scratch buffer is allocated on first use.
+     */
+    public AbstractInterleavedFilter(float sampleRate, int channels, int bufferSize) {
+        super(sampleRate);
+
+        if (channels <= 0) throw new IllegalArgumentException("channels <= 0");
+        if (bufferSize < 0) throw new IllegalArgumentException("bufferSize < 0");
+
+        this.channels = channels;
+        this.scratch = new float[bufferSize];
+    }
+
+    @Override
+    public int getChannels() {
+        return channels;
+    }
+
+    @Override
+    public int process(float[][] buffer, int offs, int len) {
+        int samples = len * channels;
+        if (scratch.length < samples) scratch = new float[samples];
+
+        for (int ch = 0; ch < channels; ch++)
+            for (int smp = 0; smp < len; smp++)
+                scratch[(smp * channels) + ch] = buffer[ch][offs + smp];
+
+        int processed = processInterleaved(scratch, 0, samples);
+
+        for (int ch = 0; ch < channels; ch++)
+            for (int smp = 0; smp < len; smp++)
+                buffer[ch][offs + smp] = scratch[(smp * channels) + ch];
+
+        return processed;
+    }
+}
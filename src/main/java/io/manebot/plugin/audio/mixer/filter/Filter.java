@@ -16,4 +16,22 @@ public interface Filter {
      */
     default void reset() { }
 
+    /**
+     * Finds if this filter, as currently configured, leaves audio unmodified.  Identity filters are left out of a
+     * compiled {@link FilterChain}.
+     * @return true if the filter is an identity.
+     */
+    default boolean isIdentity() {
+        return false;
+    }
+
+    /**
+     * Gets the revision of this filter's configuration.  This must change whenever the filter is reconfigured in a way
+     * that could change how it is compiled into a {@link FilterChain} (e.g. a gain becoming 1).
+     * @return revision, increasing with each reconfiguration.
+     */
+    default long getRevision() {
+        return 0L;
+    }
+
 }
@@ -0,0 +1,330 @@
+package io.manebot.plugin.audio.mixer.filter;
+
+import io.manebot.plugin.audio.mixer.filter.type.FilterClamp;
+import io.manebot.plugin.audio.mixer.filter.type.FilterGain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles a mixer's filters into an execution plan:
+ *
+ * - filters reporting themselves as identity are left out;
+ * - adjacent gains and clamps are fused into a single stage, which runs each of them over the whole block in a tight
+ *   loop of its own, with adjacent gains folded into one (and still ramped, see {@link Parameter});
+ * - everything else runs as-is, in order.
+ *
+ * When every stage of the plan is an {@link InterleavedFilter}, the chain can process interleaved buffers directly.
+ *
+ * The plan is rebuilt only when the chain is invalidated (filters added or removed), or when any filter's revision
+ * changes (filters reconfigured).  Processing and compiling happen on the mixer's processing thread only.
+ */
+public class FilterChain {
+    private final Collection<MultiChannelFilter> filters;
+    private final int channels;
+
+    private volatile boolean invalidated = true;
+
+    private MultiChannelFilter[] sources = new MultiChannelFilter[0];
+    private MultiChannelFilter[] plan = new MultiChannelFilter[0];
+    private boolean interleaved = false;
+    private long revision = 0L;
+
+    /**
+     * Creates a new filter chain.
+     * @param filters filters to compile, in order; iterated (synchronized on the collection) when compiling.
+     * @param channels channel count of the filters.
+     */
+    public FilterChain(Collection<MultiChannelFilter> filters, int channels) {
+        this.filters = filters;
+        this.channels = channels;
+    }
+
+    /**
+     * Marks the plan as out of date, causing it to be rebuilt before the next buffer is processed.
+     */
+    public void invalidate() {
+        invalidated = true;
+    }
+
+    private static long getRevision(MultiChannelFilter[] filters) {
+        long revision = 0L;
+        for (MultiChannelFilter filter : filters) revision += filter.getRevision();
+        return revision;
+    }
+
+    /**
+     * Rebuilds the plan if necessary.
+     * @return compiled plan.
+     */
+    private MultiChannelFilter[] compile() {
+        if (invalidated) {
+            invalidated = false;
+
+            synchronized (filters) {
+                sources = filters.toArray(new MultiChannelFilter[0]);
+            }
+        } else if (getRevision(sources) == revision) {
+            return plan;
+        }
+
+        revision = getRevision(sources);
+
+        List<MultiChannelFilter> plan = new ArrayList<>(sources.length);
+        List<List<SampleFilter>> fused = null;
+
+        for (MultiChannelFilter filter : sources) {
+            if (filter.isIdentity()) continue;
+
+            List<SampleFilter> sampleFilters = getFusableFilters(filter);
+            if (sampleFilters != null) {
+                if (fused == null) {
+                    fused = new ArrayList<>(channels);
+                    for (int ch = 0; ch < channels; ch ++) fused.add(new ArrayList<>());
+                }
+
+                for (int ch = 0; ch < channels; ch ++)
+                    fused.get(ch).add(sampleFilters.get(ch));
+            } else {
+                if (fused != null) {
+                    plan.add(new FusedFilter(fused));
+                    fused = null;
+                }
+
+                plan.add(filter);
+            }
+        }
+
+        if (fused != null)
+            plan.add(new FusedFilter(fused));
+
+        this.plan = plan.toArray(new MultiChannelFilter[0]);
+        this.interleaved = plan.stream().allMatch(stage -> stage instanceof InterleavedFilter);
+
+        Logger.getGlobal().fine("Compiled filter chain: " + sources.length + " filter(s) into " +
+                this.plan.length + " stage(s)");
+
+        return this.plan;
+    }
+
+    /**
+     * Finds the per-channel gains and clamps making up a filter, if it is made up of only those.
+     */
+    private List<SampleFilter> getFusableFilters(MultiChannelFilter filter) {
+        if (!(filter instanceof MuxedMultiChannelFilter)) return null;
+
+        List<SingleChannelFilter> filters = ((MuxedMultiChannelFilter) filter).getFilters();
+        if (filters.size() != channels) return null;
+
+        List<SampleFilter> sampleFilters = new ArrayList<>(channels);
+        for (SingleChannelFilter channelFilter : filters) {
+            if (!(channelFilter instanceof FilterGain) && !(channelFilter instanceof FilterClamp)) return null;
+            sampleFilters.add((SampleFilter) channelFilter);
+        }
+
+        return sampleFilters;
+    }
+
+    /**
+     * Finds if the chain, as compiled, would leave audio unmodified.
+     * @return true if there are no stages to run.
+     */
+    public boolean isEmpty() {
+        return compile().length <= 0;
+    }
+
+    /**
+     * Finds if every stage of the chain, as compiled, can process interleaved buffers.
+     * @return true if {@link #processInterleaved} may be used.
+     */
+    public boolean isInterleaved() {
+        compile();
+        return interleaved;
+    }
+
+    /**
+     * Gets the compiled stages of this chain, rebuilding it if necessary.
+     * @return stages.
+     */
+    public List<MultiChannelFilter> getStages() {
+        return Arrays.asList(compile().clone());
+    }
+
+    /**
+     * Processes a buffer through the chain.
+     * @param buffer samples to process, by channel.
+     * @param offs offset to process at in each channel buffer.
+     * @param len length of samples to process in each channel buffer.
+     */
+    public void process(float[][] buffer, int offs, int len) {
+        for (MultiChannelFilter stage : compile())
+            stage.process(buffer, offs, len);
+    }
+
+    /**
+     * Processes an interleaved buffer through the chain.  Only valid if the chain {@link #isInterleaved()}.
+     * @param buffer interleaved samples to process.
+     * @param offs offset to process at, in samples.
+     * @param len length of samples to process; must be a multiple of the channel count.
+     */
+    public void processInterleaved(float[] buffer, int offs, int len) {
+        for (MultiChannelFilter stage : compile())
+            ((InterleavedFilter) stage).processInterleaved(buffer, offs, len);
+    }
+
+    /**
+     * Processes an interleaved buffer through the chain, de-interleaving it through the scratch buffers if any stage
+     * can't process interleaved samples.
+     * @param buffer interleaved samples to process, from the start of the buffer.
+     * @param len length of samples to process; must be a multiple of the channel count.
+     * @param scratch per-channel buffers, each holding at least len / channels samples.
+     */
+    public void processInterleaved(float[] buffer, int len, float[][] scratch) {
+        if (isInterleaved()) {
+            // Every filter can work on frames directly
+            processInterleaved(buffer, 0, len);
+            return;
+        }
+
+        int samplesPerChannel = len / channels;
+
+        for (int ch = 0; ch < channels; ch++) {
+            for (int smp = 0; smp < samplesPerChannel; smp++) {
+                scratch[ch][smp] = buffer[(smp * channels) + ch];
+            }
+        }
+
+        process(scratch, 0, samplesPerChannel);
+
+        for (int ch = 0; ch < channels; ch++) {
+            for (int smp = 0; smp < samplesPerChannel; smp++) {
+                buffer[(smp * channels) + ch] = scratch[ch][smp];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.stream(compile()).map(stage -> stage.getClass().getSimpleName()).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Runs a series of gains and clamps as one stage, one operation at a time over the whole block, so each is a tight
+     * loop with nothing to dispatch per sample.  Adjacent gains are folded into one, ramped across each block from the
+     * product of their current values to the product of their next ones.
+     */
+    private static class FusedFilter extends AbstractFilter implements InterleavedFilter {
+        private static final int GAIN = 0, CLAMP = 1;
+
+        private final int[][] ops;
+        private final float[][] min, max;
+        private final FilterGain[][][] gains;
+
+        private FusedFilter(List<List<SampleFilter>> filters) {
+            super(filters.get(0).get(0).getSampleRate());
+
+            int channels = filters.size();
+            this.ops = new int[channels][];
+            this.min = new float[channels][];
+            this.max = new float[channels][];
+            this.gains = new FilterGain[channels][][];
+
+            for (int ch = 0; ch < channels; ch ++) {
+                List<Integer> ops = new ArrayList<>();
+                List<Float> min = new ArrayList<>(), max = new ArrayList<>();
+                List<List<FilterGain>> gains = new ArrayList<>();
+
+                for (SampleFilter filter : filters.get(ch)) {
+                    int last = ops.size() - 1;
+
+                    if (filter instanceof FilterGain) {
+                        if (last >= 0 && ops.get(last) == GAIN) {
+                            gains.get(last).add((FilterGain) filter);
+                            continue;
+                        }
+
+                        ops.add(GAIN);
+                        min.add(0f);
+                        max.add(0f);
+                        gains.add(new ArrayList<>(Collections.singletonList((FilterGain) filter)));
+                    } else {
+                        ops.add(CLAMP);
+                        min.add(((FilterClamp) filter).getMin());
+                        max.add(((FilterClamp) filter).getMax());
+                        gains.add(Collections.emptyList());
+                    }
+                }
+
+                this.ops[ch] = ops.stream().mapToInt(Integer::intValue).toArray();
+                this.min[ch] = new float[min.size()];
+                this.max[ch] = new float[max.size()];
+                for (int i = 0; i < min.size(); i ++) {
+                    this.min[ch][i] = min.get(i);
+                    this.max[ch][i] = max.get(i);
+                }
+                this.gains[ch] = gains.stream().map(list -> list.toArray(new FilterGain[0])).toArray(FilterGain[][]::new);
+            }
+        }
+
+        @Override
+        public int getChannels() {
+            return ops.length;
+        }
+
+        @Override
+        public int process(float[][] buffer, int offs, int len) {
+            for (int ch = 0; ch < ops.length; ch ++)
+                process(ch, buffer[ch], offs, 1, len);
+
+            return len * ops.length;
+        }
+
+        @Override
+        public int processInterleaved(float[] buffer, int offs, int len) {
+            int channels = ops.length, frames = len / channels;
+
+            for (int ch = 0; ch < channels; ch ++)
+                process(ch, buffer, offs + ch, channels, frames);
+
+            return frames * channels;
+        }
+
+        private void process(int ch, float[] samples, int offs, int stride, int len) {
+            final int[] ops = this.ops[ch];
+            final int end = offs + (len * stride);
+
+            for (int k = 0; k < ops.length; k ++) {
+                if (ops[k] == GAIN) {
+                    // Pick up gain changes for this block
+                    float from = 1f, to = 1f;
+                    for (FilterGain gain : gains[ch][k]) {
+                        from *= gain.getParameter().getValue();
+                        to *= gain.getParameter().next(len);
+                    }
+
+                    if (from == to) {
+                        if (from == 1f) continue;
+
+                        for (int i = offs; i < end; i += stride)
+                            samples[i] *= from;
+                    } else {
+                        float gain = from, step = (to - from) / len;
+
+                        for (int i = offs; i < end; i += stride)
+                            samples[i] *= (gain += step);
+                    }
+                } else {
+                    final float min = this.min[ch][k], max = this.max[ch][k];
+
+                    for (int i = offs; i < end; i += stride)
+                        samples[i] = Math.max(min, Math.min(max, samples[i]));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package io.manebot.plugin.audio.mixer.filter;
+
+/**
+ * Represents a multi-channel filter that can also work on interleaved frames directly.  When every stage of a
+ * {@link FilterChain} is interleaved, the mixer skips converting its buffer to and from per-channel buffers.
+ */
+public interface InterleavedFilter extends MultiChannelFilter {
+
+    /**
+     * Calls the filter to process the specified interleaved audio buffer.
+     *
+     * @param buffer interleaved samples to process
+     * @param offs offset to process at, in samples (the start of a frame)
+     * @param len length of samples to process; must be a multiple of the channel count
+     * @return processed samples, usually must == len
+     */
+    int processInterleaved(float[] buffer, int offs, int len);
+
+}
@@ -2,6 +2,8 @@ package io.manebot.plugin.audio.mixer.filter;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -40,6 +42,29 @@ public class MuxedMultiChannelFilter extends AbstractFilter implements MultiChan
         return filters.length;
     }
 
+    /**
+     * Gets the filter applied to each channel.
+     * @return filters, by channel.
+     */
+    public List<SingleChannelFilter> getFilters() {
+        return Collections.unmodifiableList(Arrays.asList(filters));
+    }
+
+    @Override
+    public boolean isIdentity() {
+        for (Filter filter : filters)
+            if (!filter.isIdentity()) return false;
+
+        return true;
+    }
+
+    @Override
+    public long getRevision() {
+        long revision = 0L;
+        for (Filter filter : filters) revision += filter.getRevision();
+        return revision;
+    }
+
     @Override
     public int process(float[][] buffer, int offs, int len) {
         int n = 0;
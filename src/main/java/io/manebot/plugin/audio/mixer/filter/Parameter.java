@@ -0,0 +1,91 @@
+package io.manebot.plugin.audio.mixer.filter;
+
+/**
+ * A filter parameter that can be changed at runtime without locks and without zipper noise.
+ *
+ * Control threads post a target with {@link #set(float)}, which is a single volatile write (the last posted target
+ * wins).  The audio thread picks the target up once per block with {@link #next(int)}, and the value ramps linearly
+ * toward it over the ramp time; filters ramp from {@link #getValue()} to the value returned by next() across the
+ * block.
+ */
+public class Parameter {
+    public static final float defaultRampTimeInSeconds = 0.02f;
+
+    private final int rampFrames;
+
+    private volatile float target;
+    private volatile float value;
+
+    // Audio thread only
+    private float rampTarget, step;
+
+    public Parameter(float sampleRate, float rampTimeInSeconds, float initial) {
+        this.rampFrames = Math.max(1, Math.round(sampleRate * rampTimeInSeconds));
+        this.target = this.value = this.rampTarget = initial;
+    }
+
+    public Parameter(float sampleRate, float initial) {
+        this(sampleRate, defaultRampTimeInSeconds, initial);
+    }
+
+    /**
+     * Posts a new target value.  May be called from any thread.
+     * @param target target value.
+     */
+    public void set(float target) {
+        this.target = target;
+    }
+
+    /**
+     * Gets the most recently posted target.
+     * @return target value.
+     */
+    public float getTarget() {
+        return target;
+    }
+
+    /**
+     * Gets the current value, as of the end of the last block.
+     * @return current value.
+     */
+    public float getValue() {
+        return value;
+    }
+
+    /**
+     * Finds if the current value has reached the posted target.
+     * @return true if settled.
+     */
+    public boolean isSettled() {
+        return value == target;
+    }
+
+    /**
+     * Picks up the posted target and advances the ramp across a block.  Audio thread only.
+     * @param frames length of the block, in frames.
+     * @return value at the end of the block.
+     */
+    public float next(int frames) {
+        float target = this.target, value = this.value;
+
+        if (target != rampTarget) {
+            rampTarget = target;
+            step = (target - value) / rampFrames;
+        }
+
+        if (value == target) return value;
+
+        value += step * frames;
+        if (step == 0f || (step > 0f && value >= target) || (step < 0f && value <= target))
+            value = target;
+
+        return this.value = value;
+    }
+
+    /**
+     * Jumps straight to the posted target, without ramping.  Audio thread only.
+     */
+    public void settle() {
+        value = rampTarget = target;
+    }
+}
@@ -0,0 +1,24 @@
+package io.manebot.plugin.audio.mixer.filter;
+
+/**
+ * Represents a stateless filter that maps each sample on its own, without regard to any other samples (e.g. a gain or a
+ * transfer curve).  Adjacent gains and clamps are fused into a single stage by {@link FilterChain}.
+ */
+public interface SampleFilter extends SingleChannelFilter {
+
+    /**
+     * Filters a single sample.
+     * @param sample sample to filter.
+     * @return filtered sample.
+     */
+    float apply(float sample);
+
+    @Override
+    default int process(float[] buffer, int offs, int len) {
+        for (int i = offs; i < offs + len; i ++)
+            buffer[i] = apply(buffer[i]);
+
+        return len;
+    }
+
+}
@@ -3,6 +3,7 @@ package io.manebot.plugin.audio.mixer.filter.type;
 import io.manebot.plugin.audio.mixer.filter.AbstractFilter;
 import io.manebot.plugin.audio.mixer.filter.SingleChannelFilter;
 import io.manebot.plugin.audio.mixer.filter.SoftFilter;
+import io.manebot.plugin.audio.util.FastMath;
 
 public class FilterBandPassCompressor extends AbstractFilter implements SingleChannelFilter {
     private final SoftFilter softFilter;
@@ -28,9 +29,9 @@ public class FilterBandPassCompressor extends AbstractFilter implements SingleCh
 
         for (int i = 0; i < len; i ++) {
             if (buffer[i] < 0)
-                buffer[i] = 0f - (float) Math.pow(Math.abs(buffer[i]), q);
+                buffer[i] = 0f - FastMath.pow(Math.abs(buffer[i]), q);
             else
-                buffer[i] = (float) Math.pow(Math.abs(buffer[i]), q);
+                buffer[i] = FastMath.pow(Math.abs(buffer[i]), q);
         }
 
         for (int i = 0; i < len; i ++) {
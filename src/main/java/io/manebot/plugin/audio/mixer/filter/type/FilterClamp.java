@@ -0,0 +1,38 @@
+package io.manebot.plugin.audio.mixer.filter.type;
+
+import io.manebot.plugin.audio.mixer.filter.AbstractFilter;
+import io.manebot.plugin.audio.mixer.filter.SampleFilter;
+
+/**
+ * Hard-clips an audio signal to a range.
+ */
+public class FilterClamp extends AbstractFilter implements SampleFilter {
+    private final float min, max;
+
+    public FilterClamp(float sampleRate, float min, float max) {
+        super(sampleRate);
+
+        if (min > max) throw new IllegalArgumentException("min > max");
+
+        this.min = min;
+        this.max = max;
+    }
+
+    public float getMin() {
+        return min;
+    }
+
+    public float getMax() {
+        return max;
+    }
+
+    @Override
+    public float apply(float sample) {
+        return Math.max(min, Math.min(max, sample));
+    }
+
+    @Override
+    public boolean isIdentity() {
+        return min == Float.NEGATIVE_INFINITY && max == Float.POSITIVE_INFINITY;
+    }
+}
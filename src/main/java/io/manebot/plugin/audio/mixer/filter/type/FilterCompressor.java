@@ -2,7 +2,7 @@ package io.manebot.plugin.audio.mixer.filter.type;
 
 import io.manebot.plugin.audio.mixer.filter.AbstractFilter;
 import io.manebot.plugin.audio.mixer.filter.Filter;
-import io.manebot.plugin.audio.mixer.filter.SingleChannelFilter;
+import io.manebot.plugin.audio.mixer.filter.SampleFilter;
 
 /**
  * Compresses an audio signal (analog).
@@ -11,7 +11,7 @@ import io.manebot.plugin.audio.mixer.filter.SingleChannelFilter;
  * When Q is 1, the signal volume is not modified.
  * When Q is closer to infinity, the signal volume is reduced.
  */
-public class FilterCompressor extends AbstractFilter implements SingleChannelFilter {
+public class FilterCompressor extends AbstractFilter implements SampleFilter {
     private final float iratio, thresh, ratio, knee, kneeL, kneeR, mul;
 
     public FilterCompressor(float sampleRate, float thresh, float ratio, float knee) {
@@ -31,29 +31,38 @@ public class FilterCompressor extends AbstractFilter implements SingleChannelFil
     }
 
     @Override
-    public int process(float[] samples, int offs, int len) {
-        float value;
-        for (int i = 0; i < len; i ++) {
-            value = Math.abs(samples[i+offs]);
+    public float apply(float sample) {
+        float value = Math.abs(sample);
+
+        // Process knee
+        if (value >= kneeR)
+            value = (kneeL + knee*0.5f) + (value - (kneeL + 0.5f*knee)) * iratio;
+        else if (value > kneeL && value < kneeR)
+            value = kneeL + spline2((value-kneeL)/knee,1f,iratio)*knee;
 
-            // Process knee
-            if (value >= kneeR)
-                value = (kneeL + knee*0.5f) + (value - (kneeL + 0.5f*knee)) * iratio;
-            else if (value > kneeL && value < kneeR)
-                value = kneeL + spline2((value-kneeL)/knee,1f,iratio)*knee;
+        value *= mul;
 
-            value *= mul;
+        // Re-pack sample into new output.
+        if (sample < 0)
+            return 0f - value; // negative value processing
+        else
+            return value;
+    }
 
-            // Re-pack sample into new output.
-            if (samples[i+offs] < 0)
-                samples[i+offs] = 0f - value; // negative value processing
-            else
-                samples[i+offs] = value;
-        }
+    @Override
+    public int process(float[] samples, int offs, int len) {
+        for (int i = 0; i < len; i ++)
+            samples[i+offs] = apply(samples[i+offs]);
 
         return len;
     }
 
+    @Override
+    public boolean isIdentity() {
+        // A 1:1 ratio is a straight line through the knee, and mul works out to 1
+        return ratio == 1f;
+    }
+
     @Override
     public void reset() {
 
@@ -17,7 +17,12 @@ import java.util.Random;
  * it is possible to round up or down in a random pattern. Dithering is a way to randomly toggle the results
  * between 4 and 5 so that 80% of the time it ended up on 5 then it would average 4.8 over the long run but
  * would have random, non-repeating error in the result.
+ *
+ * @deprecated this dither is rectangular, one-sided and applied before quantization.  PCM sinks now dither as they
+ * quantize (see {@link io.manebot.plugin.audio.resample.Dither} and
+ * {@link io.manebot.plugin.audio.mixer.output.JavaMixerSink}), so this filter is no longer needed on the mix bus.
  */
+@Deprecated
 public class FilterDither extends AbstractFilter implements SingleChannelFilter {
     private final Random random;
     private final float ditherRange;
@@ -0,0 +1,379 @@
+package io.manebot.plugin.audio.mixer.filter.type;
+
+import io.manebot.plugin.audio.mixer.filter.AbstractFilter;
+import io.manebot.plugin.audio.mixer.filter.InterleavedFilter;
+import io.manebot.plugin.audio.mixer.filter.Parameter;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Multi-band equalizer.  Each band is a band-pass biquad (as in
+ * {@link io.manebot.plugin.audio.mixer.filter.SoftFilter#FILTERTYPE_BP12}) blended with the dry signal, with the bands
+ * applied one after another.  This sounds the same as a chain of {@link FilterBandPass} stages, but filters the
+ * buffer in place in a single pass: each sample runs through every band before the next sample is read, so the buffer
+ * is read and written once however many bands there are.
+ *
+ * Filter state is kept in flat arrays indexed by band and channel (small enough to stay in cache), and channels are
+ * filtered in pairs so that a stereo frame is processed together; the same kernels run on per-channel or interleaved
+ * buffers.
+ */
+public class FilterEqualizer extends AbstractFilter implements InterleavedFilter {
+    private static final int controlFrames = 32; // Coefficients are stepped once per this many frames while ramping
+
+    private final int channels;
+    private final int bands;
+    private final int rampFrames;
+
+    // Bands posted by control threads, with their coefficients
+    private final AtomicReferenceArray<Stage> posted;
+    private volatile long posts = 0L;
+
+    // Band being ramped to (or settled on), and where its ramp started from, by band (audio thread only)
+    private final Stage[] current;
+    private final float[][] from;
+    private final int[] rampPosition;
+    private final float[] ramp = new float[7];
+
+    // Coefficients in effect, by band
+    private final float[] a0, a1, a2, b1, b2, wet, dry;
+
+    // State, by (band * channels) + channel
+    private final float[] x1, x2, y1, y2;
+
+    public FilterEqualizer(float sampleRate, int channels, Band... bands) {
+        super(sampleRate);
+
+        if (channels <= 0) throw new IllegalArgumentException("channels <= 0");
+        if (bands.length <= 0) throw new IllegalArgumentException("no bands");
+
+        this.channels = channels;
+        this.bands = bands.length;
+        this.rampFrames = Math.max(1, Math.round(sampleRate * Parameter.defaultRampTimeInSeconds));
+
+        this.posted = new AtomicReferenceArray<>(bands.length);
+        this.current = new Stage[bands.length];
+        this.from = new float[bands.length][7];
+        this.rampPosition = new int[bands.length];
+
+        this.a0 = new float[bands.length];
+        this.a1 = new float[bands.length];
+        this.a2 = new float[bands.length];
+        this.b1 = new float[bands.length];
+        this.b2 = new float[bands.length];
+        this.wet = new float[bands.length];
+        this.dry = new float[bands.length];
+
+        for (int band = 0; band < bands.length; band ++) {
+            Stage stage = new Stage(bands[band], sampleRate);
+            posted.set(band, stage);
+            current[band] = stage;
+            rampPosition[band] = rampFrames;
+            apply(band, stage.coefficients);
+        }
+
+        this.x1 = new float[bands.length * channels];
+        this.x2 = new float[bands.length * channels];
+        this.y1 = new float[bands.length * channels];
+        this.y2 = new float[bands.length * channels];
+    }
+
+    public Band[] getBands() {
+        Band[] bands = new Band[this.bands];
+        for (int band = 0; band < bands.length; band ++)
+            bands[band] = posted.get(band).band;
+        return bands;
+    }
+
+    /**
+     * Changes a band.  The band's coefficients are calculated on the calling thread and handed to the audio thread
+     * without locking; the filter then ramps to them over a short time, to avoid zipper noise.  Since the stable region
+     * of a biquad's coefficients is convex, every step of the ramp is stable too.
+     * @param index index of the band to change.
+     * @param band new band.
+     */
+    public void setBand(int index, Band band) {
+        posted.set(index, new Stage(band, getSampleRate()));
+        posts++;
+    }
+
+    @Override
+    public int getChannels() {
+        return channels;
+    }
+
+    private boolean isSettled() {
+        for (int band = 0; band < bands; band ++)
+            if (posted.get(band) != current[band] || rampPosition[band] < rampFrames) return false;
+
+        return true;
+    }
+
+    @Override
+    public boolean isIdentity() {
+        for (int band = 0; band < bands; band ++) {
+            Band posted = this.posted.get(band).band;
+            if (posted.getWet() != 0f || posted.getDry() != 1f) return false;
+        }
+
+        return isSettled();
+    }
+
+    @Override
+    public long getRevision() {
+        // Changes when a band is posted, and again once the ramp to it settles
+        return (posts * 2L) + (isSettled() ? 1L : 0L);
+    }
+
+    private void apply(int band, float[] coefficients) {
+        a0[band] = coefficients[0];
+        a1[band] = coefficients[1];
+        a2[band] = coefficients[2];
+        b1[band] = coefficients[3];
+        b2[band] = coefficients[4];
+        wet[band] = coefficients[5];
+        dry[band] = coefficients[6];
+    }
+
+    /**
+     * Picks up band changes and steps any ramp in progress.
+     * @return number of frames the band's coefficients are good for.
+     */
+    private int prepare(int band, int frames) {
+        Stage stage = posted.get(band);
+
+        if (stage != current[band]) {
+            // Start a new ramp from wherever the coefficients are right now
+            float[] from = this.from[band];
+            from[0] = a0[band];
+            from[1] = a1[band];
+            from[2] = a2[band];
+            from[3] = b1[band];
+            from[4] = b2[band];
+            from[5] = wet[band];
+            from[6] = dry[band];
+
+            current[band] = stage;
+            rampPosition[band] = 0;
+        }
+
+        if (rampPosition[band] >= rampFrames) return frames;
+
+        int n = Math.min(frames, controlFrames);
+        rampPosition[band] = Math.min(rampFrames, rampPosition[band] + n);
+
+        float t = (float) rampPosition[band] / (float) rampFrames;
+        float[] from = this.from[band], to = stage.coefficients;
+        for (int i = 0; i < to.length; i ++)
+            ramp[i] = from[i] + ((to[i] - from[i]) * t);
+
+        apply(band, ramp);
+
+        return n;
+    }
+
+    /**
+     * Prepares every band for the next run of frames.
+     * @return number of frames every band's coefficients are good for; while any band ramps, one control period.
+     */
+    private int prepare(int frames) {
+        int n = frames;
+        for (int band = 0; band < bands; band ++)
+            n = Math.min(n, prepare(band, frames));
+
+        return n;
+    }
+
+    @Override
+    public int process(float[][] buffer, int offs, int len) {
+        int ch;
+
+        for (int done = 0, n; done < len; done += n) {
+            n = prepare(len - done);
+
+            // Channels are filtered in pairs, so the two (independent) recursions can overlap
+            for (ch = 0; ch + 1 < channels; ch += 2)
+                processPair(ch, buffer[ch], offs + done, buffer[ch + 1], offs + done, 1, n);
+
+            if (ch < channels)
+                processSingle(ch, buffer[ch], offs + done, 1, n);
+        }
+
+        return len * channels;
+    }
+
+    @Override
+    public int processInterleaved(float[] buffer, int offs, int len) {
+        int frames = len / channels, ch, start;
+
+        for (int done = 0, n; done < frames; done += n) {
+            n = prepare(frames - done);
+            start = offs + (done * channels);
+
+            for (ch = 0; ch + 1 < channels; ch += 2)
+                processPair(ch, buffer, start + ch, buffer, start + ch + 1, channels, n);
+
+            if (ch < channels)
+                processSingle(ch, buffer, start + ch, channels, n);
+        }
+
+        return frames * channels;
+    }
+
+    private void processPair(int ch, float[] left, int leftOffs, float[] right, int rightOffs, int stride, int len) {
+        final float[] a0 = this.a0, a1 = this.a1, a2 = this.a2, b1 = this.b1, b2 = this.b2, wet = this.wet, dry = this.dry;
+        final float[] x1 = this.x1, x2 = this.x2, y1 = this.y1, y2 = this.y2;
+        final int bands = this.bands, channels = this.channels;
+        float lx, ly, rx, ry;
+
+        for (int i = 0, li = leftOffs, ri = rightOffs; i < len; i ++, li += stride, ri += stride) {
+            lx = left[li];
+            rx = right[ri];
+
+            for (int band = 0, l = ch, r = ch + 1; band < bands; band ++, l += channels, r += channels) {
+                ly = (a0[band]*lx + a1[band]*x1[l] + a2[band]*x2[l] - b1[band]*y1[l] - b2[band]*y2[l]);
+                ry = (a0[band]*rx + a1[band]*x1[r] + a2[band]*x2[r] - b1[band]*y1[r] - b2[band]*y2[r]);
+
+                x2[l] = x1[l]; x1[l] = lx; y2[l] = y1[l]; y1[l] = ly;
+                x2[r] = x1[r]; x1[r] = rx; y2[r] = y1[r]; y1[r] = ry;
+
+                // The band's output feeds the next band
+                lx = (lx * dry[band]) + (ly * wet[band]);
+                rx = (rx * dry[band]) + (ry * wet[band]);
+            }
+
+            left[li] = lx;
+            right[ri] = rx;
+        }
+
+        flush(ch);
+        flush(ch + 1);
+    }
+
+    private void processSingle(int ch, float[] samples, int offs, int stride, int len) {
+        final float[] a0 = this.a0, a1 = this.a1, a2 = this.a2, b1 = this.b1, b2 = this.b2, wet = this.wet, dry = this.dry;
+        final float[] x1 = this.x1, x2 = this.x2, y1 = this.y1, y2 = this.y2;
+        final int bands = this.bands, channels = this.channels;
+        float x, y;
+
+        for (int i = 0, si = offs; i < len; i ++, si += stride) {
+            x = samples[si];
+
+            for (int band = 0, s = ch; band < bands; band ++, s += channels) {
+                y = (a0[band]*x + a1[band]*x1[s] + a2[band]*x2[s] - b1[band]*y1[s] - b2[band]*y2[s]);
+
+                x2[s] = x1[s]; x1[s] = x; y2[s] = y1[s]; y1[s] = y;
+
+                x = (x * dry[band]) + (y * wet[band]);
+            }
+
+            samples[si] = x;
+        }
+
+        flush(ch);
+    }
+
+    /**
+     * Flushes a channel's filter state that would otherwise decay into denormals (as SoftFilter does).
+     */
+    private void flush(int ch) {
+        for (int s = ch; s < x1.length; s += channels) {
+            if (Math.abs(x1[s]) < 1.0E-8) x1[s] = 0;
+            if (Math.abs(x2[s]) < 1.0E-8) x2[s] = 0;
+            if (Math.abs(y1[s]) < 1.0E-8) y1[s] = 0;
+            if (Math.abs(y2[s]) < 1.0E-8) y2[s] = 0;
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (int band = 0; band < bands; band ++) {
+            current[band] = posted.get(band);
+            rampPosition[band] = rampFrames;
+            apply(band, current[band].coefficients);
+        }
+
+        for (int s = 0; s < x1.length; s ++)
+            x1[s] = x2[s] = y1[s] = y2[s] = 0f;
+    }
+
+    /**
+     * A band, with its coefficients ({ a0, a1, a2, b1, b2, wet, dry }) calculated ahead of time.
+     */
+    private static final class Stage {
+        private final Band band;
+        private final float[] coefficients;
+
+        private Stage(Band band, float sampleRate) {
+            this.band = band;
+
+            float[] biquad = band.getCoefficients(sampleRate);
+            this.coefficients = new float[] {
+                    biquad[0], biquad[1], biquad[2], biquad[3], biquad[4], band.getWet(), band.getDry()
+            };
+        }
+    }
+
+    public static class Band {
+        private final float frequency, resonance, wet, dry;
+
+        /**
+         * Creates a new equalizer band.
+         * @param frequency center frequency of the band, in Hz.
+         * @param resonance resonance of the band, in dB (0-30).
+         * @param wet level of the band-passed signal.
+         * @param dry level of the unfiltered signal.
+         */
+        public Band(float frequency, float resonance, float wet, float dry) {
+            this.frequency = frequency;
+            this.resonance = resonance;
+            this.wet = wet;
+            this.dry = dry;
+        }
+
+        public float getFrequency() {
+            return frequency;
+        }
+
+        public float getResonance() {
+            return resonance;
+        }
+
+        public float getWet() {
+            return wet;
+        }
+
+        public float getDry() {
+            return dry;
+        }
+
+        /**
+         * Calculates the band-pass coefficients for this band, the same way SoftFilter does for BP12 filters.
+         * @param sampleRate sample rate.
+         * @return { a0, a1, a2, b1, b2 } (feed-forward a, feed-back b).
+         */
+        private float[] getCoefficients(float sampleRate) {
+            double resonancedB = Math.max(0, Math.min(30, resonance));
+
+            double r = ((double) frequency / sampleRate);
+            if (r > 0.45)
+                r = 0.45;
+
+            double bandwidth = Math.PI * Math.pow(10.0, -(resonancedB / 20));
+
+            double omega = 2 * Math.PI * r;
+            double cs = Math.cos(omega);
+            double sn = Math.sin(omega);
+            double sinhArg = (Math.log(2)*bandwidth*omega) / (sn * 2);
+            double alpha = sn * ((Math.exp(sinhArg) - Math.exp(-sinhArg)) * 0.5);
+
+            double cf = 1.0 / (1 + alpha);
+            return new float[] {
+                    (float) (alpha * cf),
+                    (float) (0 * cf),
+                    (float) (-alpha * cf),
+                    (float) ((-2 * cs) * cf),
+                    (float) ((1 - alpha) * cf)
+            };
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package io.manebot.plugin.audio.mixer.filter.type;
 
 import io.manebot.plugin.audio.mixer.filter.AbstractFilter;
-import io.manebot.plugin.audio.mixer.filter.Filter;
-import io.manebot.plugin.audio.mixer.filter.SingleChannelFilter;
+import io.manebot.plugin.audio.mixer.filter.Parameter;
+import io.manebot.plugin.audio.mixer.filter.SampleFilter;
 
 /**
  * Compresses an audio signal (analog).
@@ -11,29 +11,70 @@ import io.manebot.plugin.audio.mixer.filter.SingleChannelFilter;
  * When Q is 1, the signal volume is not modified.
  * When Q is closer to infinity, the signal volume is reduced.
  */
-public class FilterGain extends AbstractFilter implements SingleChannelFilter {
-    private float q;
+public class FilterGain extends AbstractFilter implements SampleFilter {
+    private final Parameter q;
+    private volatile long posts = 0L;
 
     public FilterGain(float sampleRate, float q) {
         super(sampleRate);
 
-        this.q = q;
+        this.q = new Parameter(sampleRate, q);
     }
 
+    /**
+     * Sets the gain.  The gain ramps to its new value over the next few blocks; this does not block the audio thread.
+     * @param q new gain.
+     */
     public void setQ(float q) {
-        this.q = q;
+        if (this.q.getTarget() == q) return;
+
+        this.q.set(q);
+        posts++;
     }
 
     public float getQ() {
+        return q.getTarget();
+    }
+
+    /**
+     * Gets the ramped gain parameter.
+     * @return gain parameter.
+     */
+    public Parameter getParameter() {
         return q;
     }
 
+    @Override
+    public float apply(float sample) {
+        return sample * q.getValue();
+    }
+
     @Override
     public int process(float[] samples, int offs, int len) {
-        for (int i = 0; i < len; i ++) {
-            samples[i+offs] = samples[i+offs] * q;
+        float from = q.getValue(), to = q.next(len);
+
+        if (from == to) {
+            for (int i = 0; i < len; i ++) {
+                samples[i+offs] = samples[i+offs] * to;
+            }
+        } else {
+            float gain = from, step = (to - from) / len;
+            for (int i = 0; i < len; i ++) {
+                samples[i+offs] = samples[i+offs] * (gain += step);
+            }
         }
 
         return len;
     }
+
+    @Override
+    public boolean isIdentity() {
+        return q.isSettled() && q.getValue() == 1f;
+    }
+
+    @Override
+    public long getRevision() {
+        // Changes when a new gain is posted, and again once the ramp to it settles
+        return (posts * 2L) + (q.isSettled() ? 1L : 0L);
+    }
 }
@@ -3,54 +3,144 @@ package io.manebot.plugin.audio.mixer.filter.type;
 import io.manebot.plugin.audio.mixer.filter.AbstractFilter;
 
 import io.manebot.plugin.audio.mixer.filter.SingleChannelFilter;
+import io.manebot.plugin.audio.util.FastMath;
 
+/**
+ * Look-ahead peak limiter.
+ *
+ * The envelope follower runs every sample, but the gain is only computed once per control block (in the log domain,
+ * from the highest envelope in the block) and ramped linearly across the block.  The output is delayed through a
+ * circular delay line, so the gain has always settled by the time a peak reaches the output.
+ */
 public class FilterLimiter extends AbstractFilter implements SingleChannelFilter {
+    static final int lookAhead = 62; // Output delay, in samples
+    static final int delayMask = 63; // Delay line is 64 samples long
+    static final int controlSamples = 16; // Gain is computed once per this many samples
+
+    /**
+     * Catmull-Rom weights for the points at 1/4, 2/4 and 3/4 between the two middle samples of a 4-sample window,
+     * used to estimate inter-sample peaks.
+     */
+    static final float[][] truePeakWeights = new float[3][];
+    static {
+        for (int i = 0; i < truePeakWeights.length; i ++) {
+            float t = (i + 1) / 4f, t2 = t*t, t3 = t2*t;
+            truePeakWeights[i] = new float[] {
+                    -0.5f*t3 + t2 - 0.5f*t,
+                    1.5f*t3 - 2.5f*t2 + 1f,
+                    -1.5f*t3 + 2f*t2 + 0.5f*t,
+                    0.5f*t3 - 0.5f*t2
+            };
+        }
+    }
+
     public float xdn1 = 0f;
-    private float[] lookAheadBuffer = new float[64];
-    private float threshold;
+    private final float[] delayLine = new float[delayMask + 1];
+    private int delayPosition = 0;
+    private float gain = 1f;
+
+    private final boolean truePeak;
+    private float x0, x1, x2; // previous detector inputs, oldest first
 
     /**
      * Params
      */
+    private final float threshold, logThreshold;
     private float slope = 1f, rt = 0.4f, at = 0.4f;
 
     public FilterLimiter(float sampleRate, float threshold, float attack, float release, float slope) {
+        this(sampleRate, threshold, attack, release, slope, false);
+    }
+
+    /**
+     * Creates a new limiter.
+     * @param truePeak true to estimate inter-sample peaks (4x oversampled) in the detector, false to detect on
+     *                 sample peaks only.
+     */
+    public FilterLimiter(float sampleRate, float threshold, float attack, float release, float slope,
+                         boolean truePeak) {
         super(sampleRate);
 
         this.threshold = threshold;
+        this.logThreshold = FastMath.log2(threshold);
         this.slope = slope;
         this.at = attack;
         this.rt = release;
+        this.truePeak = truePeak;
+    }
+
+    public boolean isTruePeak() {
+        return truePeak;
+    }
+
+    /**
+     * Finds the peak level of the signal up to the newest sample; with true-peak detection, this also considers the
+     * interpolated points around the previous sample.
+     */
+    private float detect(float xn) {
+        if (!truePeak) return Math.abs(xn);
+
+        float peak = Math.abs(x1);
+        for (float[] w : truePeakWeights)
+            peak = Math.max(peak, Math.abs(w[0]*x0 + w[1]*x1 + w[2]*x2 + w[3]*xn));
+
+        x0 = x1;
+        x1 = x2;
+        x2 = xn;
+
+        return peak;
     }
 
     @Override
     public int process(float[] samples, int offs, int len) {
-        float xn, a, fn, xdn;
+        float xn, a, xdn, peak, target, step;
+        float[] delayLine = this.delayLine;
+        int position = delayPosition;
 
-        for (int i = 0; i < len; i++) {
-            xn = samples[i+offs];
-            a = Math.abs(xn) - xdn1;
+        for (int i = 0, n; i < len; i += n) {
+            n = Math.min(controlSamples, len - i);
 
-            if (a < 0) a = 0;
-
-            xdn = xdn1 * (1 - rt) + (at * a);
-            if (xdn > threshold) fn = (float) Math.pow(10, -slope * (Math.log10(xdn) - Math.log10(threshold)));
-            else fn = 1;
+            // Follow the envelope across the block, holding its peak
+            xdn = xdn1;
+            peak = 0f;
+            for (int k = i; k < i + n; k++) {
+                a = detect(samples[k+offs]) - xdn;
+                if (a < 0) a = 0;
 
+                xdn = xdn * (1 - rt) + (at * a);
+                if (xdn > peak) peak = xdn;
+            }
             this.xdn1 = xdn;
-            lookAheadBuffer[63] = xn;
-            System.arraycopy(lookAheadBuffer, 1, lookAheadBuffer, 0, 63);
-            samples[i+offs] = lookAheadBuffer[0] * fn;
+
+            // Compute the gain for the end of the block in the log domain, and ramp to it
+            if (peak > threshold) target = FastMath.pow2(-slope * (FastMath.log2(peak) - logThreshold));
+            else target = 1f;
+
+            step = (target - gain) / n;
+
+            for (int k = i; k < i + n; k++) {
+                xn = samples[k+offs];
+                samples[k+offs] = delayLine[(position - lookAhead) & delayMask] * (gain += step);
+                delayLine[position] = xn;
+                position = (position + 1) & delayMask;
+            }
+
+            gain = target;
         }
 
+        delayPosition = position;
+
         return len;
     }
 
     @Override
     public void reset() {
         xdn1 = 0f;
+        gain = 1f;
+        delayPosition = 0;
+        x0 = x1 = x2 = 0f;
 
-        for (int i = 0; i < lookAheadBuffer.length; i ++)
-            lookAheadBuffer[i] = 0f;
+        for (int i = 0; i < delayLine.length; i ++)
+            delayLine[i] = 0f;
     }
 }
@@ -0,0 +1,52 @@
+package io.manebot.plugin.audio.mixer.filter.type;
+
+import io.manebot.plugin.audio.mixer.filter.AbstractInterleavedFilter;
+
+/**
+ * Compresses an audio signal (analog) working on whole frames, with the level linked across all channels.
+ *
+ * The transfer curve is the same as {@link FilterCompressor}'s, but it is evaluated on the loudest channel of each
+ * frame and the resulting gain is applied to every channel, which preserves the stereo image.
+ */
+public class FilterLinkedCompressor extends AbstractInterleavedFilter {
+    private final int channels;
+    private final FilterCompressor curve;
+
+    public FilterLinkedCompressor(float sampleRate, int channels, float thresh, float ratio, float knee) {
+        this(sampleRate, channels, 0, thresh, ratio, knee);
+    }
+
+    public FilterLinkedCompressor(float sampleRate, int channels, int bufferSize,
+                                  float thresh, float ratio, float knee) {
+        super(sampleRate, channels, bufferSize);
+
+        this.channels = channels;
+        this.curve = new FilterCompressor(sampleRate, thresh, ratio, knee);
+    }
+
+    @Override
+    public boolean isIdentity() {
+        return curve.isIdentity();
+    }
+
+    @Override
+    public int processInterleaved(float[] samples, int offs, int len) {
+        final int channels = this.channels;
+        int frames = len / channels;
+        float peak, gain;
+
+        for (int i = offs; i < offs + (frames * channels); i += channels) {
+            peak = 0f;
+            for (int ch = 0; ch < channels; ch ++)
+                peak = Math.max(peak, Math.abs(samples[i + ch]));
+
+            if (peak <= 0f) continue;
+
+            gain = curve.apply(peak) / peak;
+            for (int ch = 0; ch < channels; ch ++)
+                samples[i + ch] *= gain;
+        }
+
+        return frames * channels;
+    }
+}
@@ -0,0 +1,150 @@
+package io.manebot.plugin.audio.mixer.filter.type;
+
+import io.manebot.plugin.audio.mixer.filter.AbstractInterleavedFilter;
+import io.manebot.plugin.audio.util.FastMath;
+
+import static io.manebot.plugin.audio.mixer.filter.type.FilterLimiter.*;
+
+/**
+ * Look-ahead peak limiter working on whole frames, with one detector linked across all channels.
+ *
+ * This is the same limiter as {@link FilterLimiter}, except that the detector follows the loudest channel of each
+ * frame and every channel receives the same gain, so limiting one side of a stereo signal doesn't shift the image.
+ */
+public class FilterLinkedLimiter extends AbstractInterleavedFilter {
+    private final int channels;
+
+    private float xdn1 = 0f;
+    private final float[] delayLine;
+    private int delayPosition = 0;
+    private float gain = 1f;
+
+    private final boolean truePeak;
+    private final float[] x0, x1, x2; // previous detector inputs by channel, oldest first
+
+    /**
+     * Params
+     */
+    private final float threshold, logThreshold;
+    private final float slope, rt, at;
+
+    public FilterLinkedLimiter(float sampleRate, int channels,
+                               float threshold, float attack, float release, float slope,
+                               boolean truePeak) {
+        this(sampleRate, channels, 0, threshold, attack, release, slope, truePeak);
+    }
+
+    public FilterLinkedLimiter(float sampleRate, int channels, int bufferSize,
+                               float threshold, float attack, float release, float slope,
+                               boolean truePeak) {
+        super(sampleRate, channels, bufferSize);
+
+        this.channels = channels;
+        this.delayLine = new float[(delayMask + 1) * channels];
+
+        this.threshold = threshold;
+        this.logThreshold = FastMath.log2(threshold);
+        this.slope = slope;
+        this.at = attack;
+        this.rt = release;
+
+        this.truePeak = truePeak;
+        this.x0 = new float[channels];
+        this.x1 = new float[channels];
+        this.x2 = new float[channels];
+    }
+
+    public boolean isTruePeak() {
+        return truePeak;
+    }
+
+    /**
+     * Finds the peak level across all channels of the frame at the specified offset.
+     */
+    private float detect(float[] samples, int frame) {
+        float peak = 0f, xn;
+
+        for (int ch = 0; ch < channels; ch ++) {
+            xn = samples[frame + ch];
+
+            if (!truePeak) {
+                peak = Math.max(peak, Math.abs(xn));
+                continue;
+            }
+
+            peak = Math.max(peak, Math.abs(x1[ch]));
+            for (float[] w : truePeakWeights)
+                peak = Math.max(peak, Math.abs(w[0]*x0[ch] + w[1]*x1[ch] + w[2]*x2[ch] + w[3]*xn));
+
+            x0[ch] = x1[ch];
+            x1[ch] = x2[ch];
+            x2[ch] = xn;
+        }
+
+        return peak;
+    }
+
+    @Override
+    public int processInterleaved(float[] samples, int offs, int len) {
+        final int channels = this.channels;
+        final float[] delayLine = this.delayLine;
+        int frames = len / channels, position = delayPosition, in, out;
+        float xn, a, xdn, peak, target, step, gain = this.gain;
+
+        for (int f = 0, n; f < frames; f += n) {
+            n = Math.min(controlSamples, frames - f);
+
+            // Follow the envelope of the loudest channel across the block, holding its peak
+            xdn = xdn1;
+            peak = 0f;
+            for (int k = f; k < f + n; k++) {
+                a = detect(samples, offs + (k * channels)) - xdn;
+                if (a < 0) a = 0;
+
+                xdn = xdn * (1 - rt) + (at * a);
+                if (xdn > peak) peak = xdn;
+            }
+            this.xdn1 = xdn;
+
+            // Compute the gain for the end of the block in the log domain, and ramp to it
+            if (peak > threshold) target = FastMath.pow2(-slope * (FastMath.log2(peak) - logThreshold));
+            else target = 1f;
+
+            step = (target - gain) / n;
+
+            for (int k = f; k < f + n; k++) {
+                gain += step;
+                in = position * channels;
+                out = ((position - lookAhead) & delayMask) * channels;
+
+                for (int ch = 0, i = offs + (k * channels); ch < channels; ch ++, i ++) {
+                    xn = samples[i];
+                    samples[i] = delayLine[out + ch] * gain;
+                    delayLine[in + ch] = xn;
+                }
+
+                position = (position + 1) & delayMask;
+            }
+
+            gain = target;
+        }
+
+        this.gain = gain;
+        this.delayPosition = position;
+
+        return frames * channels;
+    }
+
+    @Override
+    public void reset() {
+        xdn1 = 0f;
+        gain = 1f;
+        delayPosition = 0;
+
+        for (int ch = 0; ch < channels; ch ++)
+            x0[ch] = x1[ch] = x2[ch] = 0f;
+
+        for (int i = 0; i < delayLine.length; i ++)
+            delayLine[i] = 0f;
+    }
+}
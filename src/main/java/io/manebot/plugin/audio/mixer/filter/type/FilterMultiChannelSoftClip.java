@@ -0,0 +1,38 @@
+package io.manebot.plugin.audio.mixer.filter.type;
+
+import io.manebot.plugin.audio.mixer.filter.AbstractInterleavedFilter;
+
+/**
+ * Soft-clips all channels of an audio signal in one pass over interleaved frames (Opus' soft clipper handles
+ * interleaved input natively); see {@link FilterSoftClip}.
+ */
+public class FilterMultiChannelSoftClip extends AbstractInterleavedFilter {
+    private final int channels;
+    private final float[] states;
+
+    public FilterMultiChannelSoftClip(float sampleRate, int channels) {
+        this(sampleRate, channels, 0);
+    }
+
+    public FilterMultiChannelSoftClip(float sampleRate, int channels, int bufferSize) {
+        super(sampleRate, channels, bufferSize);
+
+        this.channels = channels;
+        this.states = new float[channels];
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < channels; i ++)
+            states[i] = 0f;
+    }
+
+    @Override
+    public int processInterleaved(float[] samples, int offs, int len) {
+        int frames = len / channels;
+
+        FilterSoftClip.pcm_soft_clip(samples, offs, frames, channels, states);
+
+        return frames * channels;
+    }
+}
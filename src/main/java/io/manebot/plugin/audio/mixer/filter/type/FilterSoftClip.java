@@ -35,7 +35,7 @@ public class FilterSoftClip extends AbstractFilter implements SingleChannelFilte
      * @param C Number of channels
      * @param declip_mem State memory for the soft clipping process (one float per channel, initialized to zero)
      */
-    private static void pcm_soft_clip(float[] _x, int offs, int N, int C, float[] declip_mem) {
+    static void pcm_soft_clip(float[] _x, int offs, int N, int C, float[] declip_mem) {
         int c;
         int i;
 
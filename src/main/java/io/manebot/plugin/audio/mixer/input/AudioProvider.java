@@ -28,6 +28,21 @@ public interface AudioProvider extends AutoCloseable {
      */
     int read(float[] buffer, int offs, int len) throws IOException, EOFException;
 
+    /**
+     * Registers a listener to be told when samples become available or the stream ends, so that readers can keep
+     * track of availability without polling {@link #available()}.
+     *
+     * Providers that support this signal every sample that becomes available exactly once (including any already
+     * available when the listener is set), and never make samples available without signalling them; availability
+     * then only drops through reads.  Providers that don't support it must be polled.
+     *
+     * @param listener listener to register, or null to clear it.
+     * @return true if this provider signals readiness, false if it must be polled.
+     */
+    default boolean setReadinessListener(ReadinessListener listener) {
+        return false;
+    }
+
     /**
      * Gets the sample rate of this provider.
      * @return sample rate.
@@ -48,6 +63,22 @@ public interface AudioProvider extends AutoCloseable {
         return getFormat(getSampleRate(), getChannels());
     }
 
+    interface ReadinessListener {
+        /**
+         * Called when samples become available on a provider.
+         * @param provider provider signalling.
+         * @param samples count of samples that became available (not the total available).
+         */
+        void onAvailable(AudioProvider provider, int samples);
+
+        /**
+         * Called when a provider reaches the end of its stream; nothing more will become available.  Listeners
+         * poll {@link AudioProvider#available()} again here, so a provider may discard samples at its end.
+         * @param provider provider signalling.
+         */
+        void onEnd(AudioProvider provider);
+    }
+
     static AudioFormat getFormat(int sampleRate, int channels) {
         return getFormat((float)sampleRate, channels);
     }
@@ -10,6 +10,7 @@ public class BasicMixerChannel implements MixerChannel {
 
     private volatile boolean priority = false;
     private volatile boolean playing = true;
+    private volatile UnderrunPolicy underrunPolicy = UnderrunPolicy.STRICT;
 
     public BasicMixerChannel(AudioProvider provider) {
         this.provider = provider;
@@ -32,6 +33,15 @@ public class BasicMixerChannel implements MixerChannel {
         return playing;
     }
 
+    @Override
+    public UnderrunPolicy getUnderrunPolicy() {
+        return underrunPolicy;
+    }
+
+    public void setUnderrunPolicy(UnderrunPolicy underrunPolicy) {
+        this.underrunPolicy = underrunPolicy;
+    }
+
     @Override
     public void close() throws Exception {
         setPlaying(false);
@@ -44,6 +54,24 @@ public class BasicMixerChannel implements MixerChannel {
         return provider.available();
     }
 
+    @Override
+    public boolean setReadinessListener(ReadinessListener listener) {
+        if (listener == null) return provider.setReadinessListener(null);
+
+        // Re-signal as this channel, so listeners see the object they registered with
+        return provider.setReadinessListener(new ReadinessListener() {
+            @Override
+            public void onAvailable(AudioProvider provider, int samples) {
+                listener.onAvailable(BasicMixerChannel.this, samples);
+            }
+
+            @Override
+            public void onEnd(AudioProvider provider) {
+                listener.onEnd(BasicMixerChannel.this);
+            }
+        });
+    }
+
     @Override
     public int getSampleRate() {
         return provider.getSampleRate();
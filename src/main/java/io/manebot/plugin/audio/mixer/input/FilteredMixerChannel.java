@@ -19,6 +19,23 @@ public class FilteredMixerChannel implements MixerChannel {
         return channel.available();
     }
 
+    @Override
+    public boolean setReadinessListener(ReadinessListener listener) {
+        if (listener == null) return channel.setReadinessListener(null);
+
+        return channel.setReadinessListener(new ReadinessListener() {
+            @Override
+            public void onAvailable(AudioProvider provider, int samples) {
+                listener.onAvailable(FilteredMixerChannel.this, samples);
+            }
+
+            @Override
+            public void onEnd(AudioProvider provider) {
+                listener.onEnd(FilteredMixerChannel.this);
+            }
+        });
+    }
+
     @Override
     public int read(float[] buffer, int offs, int len) throws IOException, EOFException {
         int num = channel.read(buffer, offs, len);
@@ -42,6 +59,11 @@ public class FilteredMixerChannel implements MixerChannel {
         return channel.isPlaying();
     }
 
+    @Override
+    public UnderrunPolicy getUnderrunPolicy() {
+        return channel.getUnderrunPolicy();
+    }
+
     @Override
     public void close() throws Exception {
         channel.close();
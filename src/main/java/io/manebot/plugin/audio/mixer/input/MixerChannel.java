@@ -12,6 +12,14 @@ public interface MixerChannel extends AudioProvider {
      */
     boolean isPlaying();
 
+    /**
+     * Gets what the mixer should do when this channel can't provide a whole block in time.
+     * @return underrun policy.
+     */
+    default UnderrunPolicy getUnderrunPolicy() {
+        return UnderrunPolicy.STRICT;
+    }
+
     interface Registrant {
         void onChannelAdded(MixerChannel channel);
         void onChannelRemoved(MixerChannel channel);
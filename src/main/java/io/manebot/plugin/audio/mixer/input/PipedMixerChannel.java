@@ -1,5 +1,7 @@
 package io.manebot.plugin.audio.mixer.input;
 
+import io.manebot.plugin.audio.mixer.output.AudioFrame;
+import io.manebot.plugin.audio.mixer.output.AudioFramePool;
 import io.manebot.plugin.audio.mixer.output.PipedMixerSink;
 import io.manebot.virtual.Profiler;
 
@@ -7,15 +9,22 @@ import java.io.IOException;
 
 public class PipedMixerChannel implements MixerChannel {
     private final PipedMixerSink parent;
-    private final float[] buffer;
     private final Object lock = new Object();
     private final int bufferSize;
-    private int position;
+    private final AudioFramePool pool = new AudioFramePool();
+
+    // Piped frames, oldest first, each from an offset and for a length of its samples; guarded by lock.  Frames
+    // written by the mixer are retained rather than copied, and only copied out when the channel is read.
+    private AudioFrame[] frames = new AudioFrame[16];
+    private int[] offsets = new int[16], lengths = new int[16];
+    private int first = 0, count = 0;
+    private int position; // Samples in the pipe
+
+    private ReadinessListener listener;
 
     public PipedMixerChannel(PipedMixerSink parent, int bufferSize) {
         this.parent = parent;
         this.bufferSize = bufferSize;
-        this.buffer = new float[bufferSize];
     }
 
     public int getBufferSize() {
@@ -32,20 +41,40 @@ public class PipedMixerChannel implements MixerChannel {
         return position;
     }
 
+    @Override
+    public boolean setReadinessListener(ReadinessListener listener) {
+        synchronized (lock) {
+            this.listener = listener;
+
+            // Signal what is already waiting in the pipe
+            if (listener != null && position > 0) listener.onAvailable(this, position);
+        }
+
+        return true;
+    }
+
     public int availableInput() {
-        return buffer.length - position;
+        return bufferSize - position;
     }
 
     @Override
     public int read(float[] buffer, int offs, int len) throws IOException {
         try (Profiler profiler = Profiler.region("pipe")) {
             synchronized (lock) {
-                int copy = Math.min(len, position);
-
-                if (copy > 0) {
-                    System.arraycopy(this.buffer, 0, buffer, offs, copy);
-                    System.arraycopy(this.buffer, copy, this.buffer, 0, this.buffer.length - copy);
-                    position -= copy;
+                int copy = 0, n;
+
+                while (copy < len && count > 0) {
+                    n = Math.min(len - copy, lengths[first]);
+                    System.arraycopy(frames[first].getSamples(), offsets[first], buffer, offs + copy, n);
+                    copy += n;
+
+                    if (n == lengths[first]) {
+                        pop().release();
+                    } else {
+                        offsets[first] += n;
+                        lengths[first] -= n;
+                        position -= n;
+                    }
                 }
 
                 return copy;
@@ -66,33 +95,88 @@ public class PipedMixerChannel implements MixerChannel {
     @Override
     public void close() throws Exception {
         synchronized (lock) {
-            position = 0;
+            while (count > 0) pop().release();
+
+            if (listener != null) listener.onEnd(this);
 
             lock.notifyAll();
         }
-
-        for (int i = 0; i < buffer.length; i ++)
-            buffer[i] = 0f;
     }
 
     public int write(float[] buffer, int len) {
         if (len <= 0) return 0;
 
+        AudioFrame frame = pool.acquire(len);
+        try {
+            System.arraycopy(buffer, 0, frame.getSamples(), 0, len);
+            return write(frame);
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * Pipes a frame, retaining it until it has been read.
+     * @param frame frame to pipe; its samples must not be modified.
+     * @return samples piped, which is less than the frame's length if the pipe is (nearly) full.
+     */
+    public int write(AudioFrame frame) {
+        if (frame.getLength() <= 0) return 0;
+
         try (Profiler profiler = Profiler.region("pipe")) {
             synchronized (lock) {
-                int n = Math.min(this.buffer.length - position, len);
+                int n = Math.min(bufferSize - position, frame.getLength());
 
                 if (n <= 0) return 0;
 
-                System.arraycopy(buffer, 0, this.buffer, position, n);
+                push(frame.retain(), 0, n);
 
-                this.position += n;
+                if (listener != null) listener.onAvailable(this, n);
 
                 return n;
             }
         }
     }
 
+    private void push(AudioFrame frame, int offs, int len) {
+        if (count == frames.length) {
+            // Grow, unrolling the queue to the start of the new arrays
+            AudioFrame[] frames = new AudioFrame[count * 2];
+            int[] offsets = new int[count * 2], lengths = new int[count * 2];
+
+            for (int i = 0; i < count; i ++) {
+                int index = (first + i) % this.frames.length;
+                frames[i] = this.frames[index];
+                offsets[i] = this.offsets[index];
+                lengths[i] = this.lengths[index];
+            }
+
+            this.frames = frames;
+            this.offsets = offsets;
+            this.lengths = lengths;
+            first = 0;
+        }
+
+        int index = (first + count) % frames.length;
+        frames[index] = frame;
+        offsets[index] = offs;
+        lengths[index] = len;
+        count ++;
+        position += len;
+    }
+
+    /**
+     * Takes the oldest frame out of the pipe; the caller takes over its reference.
+     */
+    private AudioFrame pop() {
+        AudioFrame frame = frames[first];
+        position -= lengths[first];
+        frames[first] = null;
+        first = (first + 1) % frames.length;
+        count --;
+        return frame;
+    }
+
     @Override
     public String toString() {
         return "PipedChannel{" + parent.toString() + "}";
@@ -0,0 +1,218 @@
+package io.manebot.plugin.audio.mixer.input;
+
+import io.manebot.plugin.audio.AudioBuffer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens, probes and pre-decodes an audio provider ahead of time, so that the first samples are ready the moment the
+ * provider is placed on a mixer (e.g. the next track of a crossfade).
+ *
+ * Pre-rolling happens on an executor of its own, as opening and probing block on the network and on decoding; the
+ * time it took is measured and can be read back once it completes.
+ */
+public class PrerolledAudioProvider implements AudioProvider {
+    private static final AtomicInteger threadCount = new AtomicInteger(0);
+
+    // Default pre-roll executor: daemon threads, created on demand and let go after a minute idle
+    private static final ExecutorService defaultExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "audio-preroll-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object stateLock = new Object();
+
+    private final Callable<AudioProvider> opener;
+    private final double prerollTimeInSeconds;
+    private final Executor executor;
+
+    private CompletableFuture<PrerolledAudioProvider> future;
+
+    private volatile AudioProvider provider;
+    private AudioBuffer buffer;
+
+    private volatile long prerollNanos = -1L;
+    private boolean eof = false, closed = false;
+
+    /**
+     * Creates a new pre-rolled audio provider, pre-rolled on the default pre-roll executor.
+     * @param opener callable opening (and probing) the underlying provider; called on a background thread.
+     * @param prerollTimeInSeconds amount of audio to decode ahead of time, in seconds.
+     */
+    public PrerolledAudioProvider(Callable<AudioProvider> opener, double prerollTimeInSeconds) {
+        this(opener, prerollTimeInSeconds, defaultExecutor);
+    }
+
+    /**
+     * Creates a new pre-rolled audio provider.
+     * @param opener callable opening (and probing) the underlying provider; called on the executor.
+     * @param prerollTimeInSeconds amount of audio to decode ahead of time, in seconds.
+     * @param executor executor to pre-roll on; it should allow blocking tasks.
+     */
+    public PrerolledAudioProvider(Callable<AudioProvider> opener, double prerollTimeInSeconds, Executor executor) {
+        if (prerollTimeInSeconds < 0D)
+            throw new IllegalArgumentException("prerollTimeInSeconds < 0");
+
+        this.opener = opener;
+        this.prerollTimeInSeconds = prerollTimeInSeconds;
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the executor this provider is pre-rolled on.
+     * @return pre-roll executor.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Begins pre-rolling this provider in the background, if it hasn't begun already.
+     * @return future completed when the provider has been opened and pre-decoded.
+     */
+    public CompletableFuture<PrerolledAudioProvider> preroll() {
+        synchronized (stateLock) {
+            if (future == null) {
+                if (closed) throw new IllegalStateException("closed");
+
+                future = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        open();
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+
+                    return this;
+                }, executor);
+            }
+
+            return future;
+        }
+    }
+
+    private void open() throws Exception {
+        long start = System.nanoTime();
+
+        AudioProvider provider = opener.call();
+
+        int frames = (int) Math.ceil(provider.getSampleRate() * prerollTimeInSeconds);
+        AudioBuffer buffer = new AudioBuffer(Math.max(1, frames * provider.getChannels()));
+
+        boolean eof = false;
+        while (buffer.availableInput() > 0) {
+            int len = Math.min(buffer.availableInput(), provider.available());
+            if (len <= 0) break; // live sources may not have anything to decode ahead of time
+
+            try {
+                if (buffer.write(provider, len) <= 0) break;
+            } catch (EOFException ex) {
+                eof = true;
+                break;
+            }
+        }
+
+        synchronized (stateLock) {
+            this.buffer = buffer;
+            this.eof = eof;
+            this.provider = provider;
+            this.prerollNanos = System.nanoTime() - start;
+
+            if (closed) provider.close();
+        }
+    }
+
+    /**
+     * Finds if the provider has finished pre-rolling and is ready to be read.
+     * @return true if the provider is ready.
+     */
+    public boolean isPrerolled() {
+        return provider != null;
+    }
+
+    /**
+     * Gets the wall-clock time it took to open and pre-decode the provider.
+     * @return pre-roll time in seconds, or -1 if pre-rolling has not completed.
+     */
+    public double getPrerollTimeInSeconds() {
+        long nanos = prerollNanos;
+        return nanos < 0 ? -1D : nanos / 1_000_000_000D;
+    }
+
+    /**
+     * Gets the amount of audio this provider will decode ahead of time.
+     * @return pre-roll depth in seconds.
+     */
+    public double getPrerollDepthInSeconds() {
+        return prerollTimeInSeconds;
+    }
+
+    private AudioProvider requireProvider() {
+        AudioProvider provider = this.provider;
+        if (provider == null) throw new IllegalStateException("not prerolled");
+        return provider;
+    }
+
+    @Override
+    public int available() {
+        AudioProvider provider = this.provider;
+        if (provider == null) return 0;
+
+        return buffer.availableOutput() + (eof ? 0 : provider.available());
+    }
+
+    @Override
+    public int read(float[] buffer, int offs, int len) throws IOException, EOFException {
+        AudioProvider provider = this.provider;
+        if (provider == null) return 0;
+
+        // Drain the pre-decoded samples first
+        int pos = this.buffer.read(buffer, offs, len);
+
+        if (pos < len && !eof) {
+            try {
+                pos += provider.read(buffer, offs + pos, len - pos);
+            } catch (EOFException ex) {
+                eof = true;
+            }
+        }
+
+        if (eof && pos <= 0) throw new EOFException();
+
+        return pos;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return requireProvider().getSampleRate();
+    }
+
+    @Override
+    public int getChannels() {
+        return requireProvider().getChannels();
+    }
+
+    @Override
+    public void close() throws Exception {
+        synchronized (stateLock) {
+            if (closed) return;
+            closed = true;
+
+            // If pre-rolling is in progress, the provider is closed as soon as it is opened.
+            if (provider != null) provider.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Preroll{" + (provider == null ? "pending" : provider.toString()) + "}";
+    }
+}
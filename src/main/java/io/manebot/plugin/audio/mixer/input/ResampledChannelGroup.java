@@ -0,0 +1,296 @@
+package io.manebot.plugin.audio.mixer.input;
+
+import io.manebot.plugin.audio.AudioBuffer;
+import io.manebot.plugin.audio.resample.Resampler;
+import io.manebot.plugin.audio.resample.ResamplerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Channels sharing a source format foreign to their mixer, mixed at that format and resampled together.  The group
+ * is a single channel to the mixer, so the cost of resampling follows the number of distinct source formats rather
+ * than the number of channels.
+ *
+ * Members that hold the mixer back (see {@link UnderrunPolicy#isStrict()}) hold the group back; the others are padded
+ * with silence when they run dry.  The group is playing for as long as it has members.
+ */
+public class ResampledChannelGroup implements MixerChannel {
+    // Frames held back from what the group reports as available, covering the resampler's delay
+    private static final int marginFrames = 64;
+
+    private final Object lock = new Object();
+
+    private final int sourceSampleRate, sourceChannels;
+    private final int sampleRate, channels;
+    private final double ratio; // Output frames per source frame
+    private final Resampler resampler;
+
+    private final Map<MixerChannel, CompletableFuture<MixerChannel>> members = new LinkedHashMap<>();
+
+    // The members, and whether any is strict, updated when members join or leave; read every block without locking
+    private volatile MixerChannel[] memberArray = new MixerChannel[0];
+    private volatile boolean strict = false;
+
+    // Processing thread only
+    private final float[] mix, read;
+    private final AudioBuffer output;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new group.
+     * @param resamplerFactory factory of the group's resampler.
+     * @param sourceSampleRate sample rate of the members.
+     * @param sourceChannels channel count of the members.
+     * @param sampleRate sample rate of the mixer.
+     * @param channels channel count of the mixer.
+     * @param bufferSize largest read the mixer makes, in samples at the mixer's format.
+     */
+    public ResampledChannelGroup(ResamplerFactory resamplerFactory,
+                                 int sourceSampleRate, int sourceChannels,
+                                 int sampleRate, int channels,
+                                 int bufferSize) {
+        this.sourceSampleRate = sourceSampleRate;
+        this.sourceChannels = sourceChannels;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.ratio = (double) sampleRate / (double) sourceSampleRate;
+
+        int sourceFrames = (int) Math.ceil((bufferSize / channels) / ratio) + marginFrames;
+
+        this.resampler = resamplerFactory.create(
+                AudioProvider.getFormat(sourceSampleRate, sourceChannels),
+                AudioProvider.getFormat(sampleRate, channels),
+                sourceFrames
+        );
+
+        this.mix = new float[sourceFrames * sourceChannels];
+        this.read = new float[sourceFrames * sourceChannels];
+        this.output = new AudioBuffer(bufferSize + ((int) Math.ceil(marginFrames * 2 * ratio) * channels));
+    }
+
+    /**
+     * Adds a member to the group.
+     * @param channel channel to add, at the group's source format.
+     * @return a CompletableFuture, completed when the channel leaves the group (e.g. stopped).
+     */
+    public CompletableFuture<MixerChannel> add(MixerChannel channel) {
+        if (channel.getSampleRate() != sourceSampleRate || channel.getChannels() != sourceChannels)
+            throw new IllegalArgumentException("format mismatch");
+
+        CompletableFuture<MixerChannel> future = new CompletableFuture<>();
+
+        synchronized (lock) {
+            if (closed) throw new IllegalStateException("group closed");
+            if (members.putIfAbsent(channel, future) != null) throw new IllegalStateException();
+            updateMembers();
+        }
+
+        return future;
+    }
+
+    /**
+     * Removes a member from the group.
+     * @param channel channel to remove.
+     * @return true if the channel was removed, false otherwise.
+     */
+    public boolean remove(MixerChannel channel) {
+        CompletableFuture<MixerChannel> future;
+
+        synchronized (lock) {
+            future = members.remove(channel);
+            if (future != null) updateMembers();
+        }
+
+        if (future == null) return false;
+
+        future.complete(channel);
+        return true;
+    }
+
+    /**
+     * Publishes the members to the audio thread.  Called with the lock held.
+     */
+    private void updateMembers() {
+        MixerChannel[] memberArray = members.keySet().toArray(new MixerChannel[0]);
+
+        boolean strict = false;
+        for (MixerChannel member : memberArray)
+            strict |= member.getUnderrunPolicy().isStrict();
+
+        this.memberArray = memberArray;
+        this.strict = strict;
+    }
+
+    /**
+     * Removes every member from the group, e.g. when the group itself is removed from its mixer.
+     */
+    public void clear() {
+        for (MixerChannel member : memberArray)
+            remove(member);
+    }
+
+    /**
+     * Gets the members of this group.
+     * @return member channels.
+     */
+    public Collection<MixerChannel> getMembers() {
+        return Collections.unmodifiableList(Arrays.asList(memberArray));
+    }
+
+    public int getSourceSampleRate() {
+        return sourceSampleRate;
+    }
+
+    public int getSourceChannels() {
+        return sourceChannels;
+    }
+
+    @Override
+    public String getName() {
+        return "ResampledGroup[" + sourceSampleRate + "/" + sourceChannels + "]";
+    }
+
+    /**
+     * Finds if the group is playing, letting go of members that have stopped.
+     * @return true if any member is still playing.
+     */
+    @Override
+    public boolean isPlaying() {
+        if (closed) return false;
+
+        for (MixerChannel member : memberArray)
+            if (!member.isPlaying()) remove(member);
+
+        return !closed && memberArray.length > 0;
+    }
+
+    @Override
+    public UnderrunPolicy getUnderrunPolicy() {
+        return strict ? UnderrunPolicy.STRICT : UnderrunPolicy.PAD;
+    }
+
+    /**
+     * Finds how many source samples every strict member can provide; with no strict members, the most any member can.
+     */
+    private int sourceAvailable(MixerChannel[] members) {
+        int strict = Integer.MAX_VALUE, other = 0;
+
+        for (MixerChannel member : members) {
+            if (!member.isPlaying()) continue;
+
+            int available = member.available();
+            if (member.getUnderrunPolicy().isStrict()) strict = Math.min(strict, available);
+            else other = Math.max(other, available);
+        }
+
+        int available = strict != Integer.MAX_VALUE ? strict : other;
+        return Math.max(0, available - (available % sourceChannels));
+    }
+
+    @Override
+    public int available() {
+        // Held back by the margin, except at the end of a stream: whatever is left must still be read
+        int frames = sourceAvailable(memberArray) / sourceChannels;
+        if (frames > marginFrames) frames -= marginFrames;
+        int resampled = frames > 0 ? Math.max(1, (int) Math.floor(frames * ratio)) * channels : 0;
+
+        synchronized (lock) {
+            return output.availableOutput() + resampled;
+        }
+    }
+
+    @Override
+    public int read(float[] buffer, int offs, int len) throws IOException {
+        synchronized (lock) {
+            while (output.availableOutput() < len && fill(len - output.availableOutput())) ;
+
+            return output.read(buffer, offs, Math.min(len, output.availableOutput()));
+        }
+    }
+
+    /**
+     * Mixes the members at their native format and resamples the mix into the output buffer.
+     * @param needed samples wanted at the mixer's format.
+     * @return true if anything was mixed.
+     */
+    private boolean fill(int needed) {
+        MixerChannel[] members = memberArray;
+
+        int frames = (int) Math.ceil((needed / channels) / ratio) + 1;
+        int len = Math.min(Math.min(frames * sourceChannels, mix.length), sourceAvailable(members));
+
+        // Leave room in the output buffer for what this mix resamples to
+        int room = (int) Math.floor(((output.availableInput() / channels) / ratio)) - marginFrames;
+        len = Math.min(len, Math.max(0, room) * sourceChannels);
+        if (len <= 0) return false;
+
+        for (int i = 0; i < len; i ++) mix[i] = 0f;
+
+        for (MixerChannel member : members) {
+            try {
+                if (!member.isPlaying()) {
+                    remove(member);
+                    continue;
+                }
+
+                int n = Math.min(len, member.available());
+                n -= n % sourceChannels;
+                if (n <= 0) continue;
+
+                n = member.read(read, 0, n);
+                for (int i = 0; i < n; i ++)
+                    mix[i] += read[i];
+            } catch (EOFException eof) {
+                remove(member);
+            } catch (Throwable e) {
+                Logger.getGlobal().log(Level.SEVERE, "Unexpected problem playing audio on channel", e);
+                remove(member);
+            }
+        }
+
+        // The resampler limits its output in frames
+        resampler.resample(mix, len, output::write, output.availableInput() / channels);
+
+        return true;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public int getChannels() {
+        return channels;
+    }
+
+    /**
+     * Closes the group: its members leave it (they are not closed, as they belong to whoever added them), and its
+     * resampler is released.
+     */
+    @Override
+    public void close() throws Exception {
+        synchronized (lock) {
+            if (closed) return;
+            closed = true;
+        }
+
+        clear();
+        resampler.close();
+    }
+
+    @Override
+    public String toString() {
+        return getName() + getMembers();
+    }
+}
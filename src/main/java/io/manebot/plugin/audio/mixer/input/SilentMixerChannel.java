@@ -6,6 +6,7 @@ import java.util.Arrays;
 public class SilentMixerChannel implements MixerChannel {
     private long start = System.nanoTime();
     private final float samplesPerSecond;
+    private final double framesPerNanosecond;
     private final int channels;
 
     private long sent = 0L;
@@ -13,6 +14,7 @@ public class SilentMixerChannel implements MixerChannel {
 
     public SilentMixerChannel(float samplesPerSecond, int channels) {
         this.samplesPerSecond = samplesPerSecond;
+        this.framesPerNanosecond = samplesPerSecond / 1_000_000_000D;
         this.channels = channels;
     }
 
@@ -26,11 +28,9 @@ public class SilentMixerChannel implements MixerChannel {
         // Calculate the amount of time that has transpired since the channel was created
         long transpired = System.nanoTime() - start;
 
-        // Calculate the amount of frames that should have been sent up to this point
-        double samples = samplesPerSecond * ((double) transpired / 1_000_000_000D);
-
-        // Calculate the amount of samples that should have been sent up to this point
-        long transpiredSamples = ((long) Math.floor(samples)) * channels;
+        // Calculate the amount of samples that should have been sent up to this point (frames truncate toward zero,
+        // and transpired time is never negative)
+        long transpiredSamples = ((long) (framesPerNanosecond * transpired)) * channels;
 
         // Return the amount of needed samples subtracted by the actual count sent
         return (int) (transpiredSamples - sent);
@@ -0,0 +1,68 @@
+package io.manebot.plugin.audio.mixer.input;
+
+/**
+ * Decides what a mixer does with a channel that can't provide a whole block in time (e.g. a network stream running
+ * dry).
+ */
+public final class UnderrunPolicy {
+    /**
+     * The mixer waits for the channel, holding back every other channel on it.  This is the default, and suits
+     * channels that are never late (decoders, generated audio).
+     */
+    public static final UnderrunPolicy STRICT = new UnderrunPolicy(Mode.STRICT, 0L);
+
+    /**
+     * The mixer plays what the channel has and pads the rest of the block with silence; the channel re-buffers
+     * before it is heard again.
+     */
+    public static final UnderrunPolicy PAD = new UnderrunPolicy(Mode.PAD, 0L);
+
+    private final Mode mode;
+    private final long timeoutMillis;
+
+    private UnderrunPolicy(Mode mode, long timeoutMillis) {
+        this.mode = mode;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Pads the channel like {@link #PAD}, but removes it from the mixer once it has been starving for a while.
+     * @param timeoutMillis time the channel may starve for before it is dropped, in milliseconds of mixed audio.
+     * @return underrun policy.
+     */
+    public static UnderrunPolicy dropAfter(long timeoutMillis) {
+        if (timeoutMillis < 0L) throw new IllegalArgumentException("timeoutMillis < 0");
+        return new UnderrunPolicy(Mode.DROP, timeoutMillis);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Gets how long a channel may starve for before it is dropped; only meaningful for {@link Mode#DROP}.
+     * @return timeout, in milliseconds.
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Finds if channels under this policy hold back the mixer.
+     * @return true if strict.
+     */
+    public boolean isStrict() {
+        return mode == Mode.STRICT;
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.DROP ? "drop after " + timeoutMillis + "ms" : mode.name().toLowerCase();
+    }
+
+    public enum Mode {
+        STRICT,
+        PAD,
+        DROP
+    }
+}
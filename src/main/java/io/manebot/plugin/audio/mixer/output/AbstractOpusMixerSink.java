@@ -43,6 +43,8 @@ public abstract class AbstractOpusMixerSink implements OpusMixerSink {
     private final Queue<OpusPacket> packetQueue = new ConcurrentLinkedQueue<>();
     private final int bufferSize; // Buffer size, in samples
     private int availableInput;
+    private int lowWatermark; // Queued samples below which the sink signals demand
+    private volatile Runnable demandListener;
     private int samplePosition; // Position, in samples, of the ASIO buffer (available samples)
 
     // Mixer sink state variables
@@ -66,6 +68,7 @@ public abstract class AbstractOpusMixerSink implements OpusMixerSink {
 
         this.sampleBuffer = new float[bufferSize];
         this.availableInput = 0;
+        this.lowWatermark = (bufferSize / 2) - ((bufferSize / 2) % audioFormat.getChannels());
 
         this.opusParameters = opusParameters;
         this.opusFrameSize = (int) getAudioFormat().getSampleRate() / (1000 / opusParameters.getOpusFrameTime());
@@ -97,11 +100,19 @@ public abstract class AbstractOpusMixerSink implements OpusMixerSink {
             if (len % getChannels() != 0)
                 throw new IllegalArgumentException("not a full frame");
 
-            // Write to the buffer
-            System.arraycopy(buffer, 0, sampleBuffer, samplePosition, len);
-            samplePosition += len;
             availableInput -= len;
 
+            // A whole frame at the start of the mixer's buffer is encoded from there; no need to stage it
+            int offs = 0, frameSize = opusFrameSize * getChannels();
+            if (samplePosition == 0 && len >= frameSize) {
+                position += encodeFrame(buffer);
+                offs = frameSize;
+            }
+
+            // Write the rest to the buffer
+            System.arraycopy(buffer, offs, sampleBuffer, samplePosition, len - offs);
+            samplePosition += len - offs;
+
             // Read samples from the buffer and encode them into packets
             position += encode(false);
         }
@@ -116,8 +127,6 @@ public abstract class AbstractOpusMixerSink implements OpusMixerSink {
 
         int written = 0;
         int frameSize = opusFrameSize * getChannels();
-        byte[] encoded;
-        long now;
         int copy;
 
         while (samplePosition >= (flush ? 1 : frameSize)) {
@@ -129,33 +138,49 @@ public abstract class AbstractOpusMixerSink implements OpusMixerSink {
                 samplePosition = frameSize;
             }
 
-            if (encoder == null) openOpusEncoder();
-
-            now = System.nanoTime();
-            encoded = encoder.encode(sampleBuffer, frameSize);
-            opusTime += (System.nanoTime() - now);
-            opusPacketsEncoded ++;
-            opusPosition += frameSize;
+            written += encodeFrame(sampleBuffer);
 
             System.arraycopy(sampleBuffer, frameSize, sampleBuffer, 0, samplePosition - frameSize);
             samplePosition -= frameSize;
-            if (packetQueue.add(new OpusPacket(frameSize, encoded)))
-                written+=frameSize;
         }
 
-        if (written > 0) opening = false;
-
         if (flush) Logger.getGlobal().log(Level.FINE, "Flushed TeamspeakFastMixerSink.");
 
         return written;
     }
 
+    /**
+     * Encodes one frame, starting at the beginning of the given buffer, into a packet for the packet queue
+     * @return Samples queued
+     */
+    private int encodeFrame(float[] frame) {
+        int frameSize = opusFrameSize * getChannels();
+
+        if (encoder == null) openOpusEncoder();
+
+        long now = System.nanoTime();
+        byte[] encoded = encoder.encode(frame, frameSize);
+        opusTime += (System.nanoTime() - now);
+        opusPacketsEncoded ++;
+        opusPosition += frameSize;
+
+        if (!packetQueue.add(new OpusPacket(frameSize, encoded)))
+            return 0;
+
+        opening = false;
+        return frameSize;
+    }
+
     public long getNanotime() {
         return opusTime;
     }
     public long getFrameSize() {
         return opusFrameSize;
     }
+    @Override
+    public int getBlockSize() {
+        return opusFrameSize * getChannels();
+    }
     public long getEncoderPosition() {
         return opusPosition;
     }
@@ -190,6 +215,44 @@ public abstract class AbstractOpusMixerSink implements OpusMixerSink {
         return running;
     }
 
+    @Override
+    public void setDemandListener(Runnable listener) {
+        this.demandListener = listener;
+    }
+
+    @Override
+    public boolean isSignallingDemand() {
+        return true;
+    }
+
+    /**
+     * Gets the low watermark of this sink; demand is signalled when fewer samples than this are queued.
+     * @return low watermark, in samples.
+     */
+    public int getLowWatermark() {
+        return lowWatermark;
+    }
+
+    /**
+     * Sets the low watermark of this sink.
+     * @param lowWatermark low watermark, in samples; must be within the buffer size.
+     */
+    public void setLowWatermark(int lowWatermark) {
+        if (lowWatermark < 0 || lowWatermark > bufferSize)
+            throw new IllegalArgumentException("invalid lowWatermark: " + lowWatermark);
+
+        this.lowWatermark = lowWatermark;
+    }
+
+    /**
+     * Signals demand to the listener if the sink is running and its queue has drained below the low watermark.
+     */
+    private void signalDemand() {
+        Runnable listener = this.demandListener;
+        if (listener != null && running && bufferSize - availableInput < lowWatermark)
+            listener.run();
+    }
+
     /**
      * Opens the Opus encoder
      */
@@ -264,6 +327,9 @@ public abstract class AbstractOpusMixerSink implements OpusMixerSink {
             opening = true;
             running = true;
 
+            // Ask for the initial fill
+            signalDemand();
+
             Logger.getGlobal().log(Level.FINE, "Started TeamspeakFastMixerSink.");
 
             return true;
@@ -352,6 +418,10 @@ public abstract class AbstractOpusMixerSink implements OpusMixerSink {
             underflowed ++;
             return new byte[0];
         } finally {
+            // Signalled on every call, underflows included: a pulling mixer may have spent its last demand rendering
+            // nothing (e.g. no channel had samples yet), and would otherwise never be asked again
+            signalDemand();
+
             long networkTime = System.nanoTime() - start;
 
             if (networkTime >= (opusParameters.getOpusFrameTime() * 1000000L))
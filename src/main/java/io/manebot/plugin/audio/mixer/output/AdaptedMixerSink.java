@@ -0,0 +1,336 @@
+package io.manebot.plugin.audio.mixer.output;
+
+import io.manebot.plugin.audio.AudioBuffer;
+import io.manebot.plugin.audio.mixer.input.AudioProvider;
+import io.manebot.plugin.audio.resample.Resampler;
+import io.manebot.plugin.audio.resample.ResamplerFactory;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.FloatBuffer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Feeds a sink whose format differs from its mixer's.  What the mixer writes is down- or up-mixed to the sink's
+ * channel count and resampled to its sample rate on the way in, so one mix (and one pass of the filters) can serve
+ * sinks of several formats.
+ *
+ * Channels are converted before resampling when down-mixing and after it when up-mixing, so the resampler always
+ * works on the smaller channel count.  Down-mixing averages the input channels falling on each output channel
+ * (channel index modulo the output count); up-mixing repeats them.
+ *
+ * Written from the mixer's processing thread only.
+ */
+public class AdaptedMixerSink implements MixerSink {
+    private final Object lock = new Object();
+
+    private final MixerSink sink;
+    private final AudioFormat format;
+    private final int inChannels, outChannels, resampleChannels;
+    private final double rateRatio; // Sink frames per mixer frame
+    private final Resampler resampler; // Null when the sample rates match
+
+    private final AudioBuffer pending; // Converted samples the sink hasn't taken yet
+    private float[] downmixed = new float[0], resampled = new float[0], upmixed = new float[0], chunk = new float[0];
+
+    // Resampler plumbing; processing thread only
+    private float[] resampleInput;
+    private int resampleOffset, resampledLength;
+
+    private long position = 0L, dropped = 0L, drops = 0L;
+
+    /**
+     * Creates a new format adapter.
+     * @param sink sink to feed.
+     * @param format format the mixer writes in.
+     * @param resamplerFactory factory of the resampler used when the sample rates differ.
+     */
+    public AdaptedMixerSink(MixerSink sink, AudioFormat format, ResamplerFactory resamplerFactory) {
+        this.sink = sink;
+        this.format = format;
+        this.inChannels = format.getChannels();
+        this.outChannels = sink.getAudioFormat().getChannels();
+        this.resampleChannels = Math.min(inChannels, outChannels);
+
+        float inRate = format.getSampleRate(), outRate = sink.getAudioFormat().getSampleRate();
+        this.rateRatio = (double) outRate / (double) inRate;
+
+        if (inRate != outRate) {
+            this.resampler = resamplerFactory.create(
+                    AudioProvider.getFormat(inRate, resampleChannels),
+                    AudioProvider.getFormat(outRate, resampleChannels),
+                    Math.max(1, (int) inRate / 10) // Chunk of 100ms; larger writes are resampled in several chunks
+            );
+        } else {
+            this.resampler = null;
+        }
+
+        this.pending = new AudioBuffer(sink.getBufferSize());
+    }
+
+    /**
+     * Adapts a sink to a mixer's format, if it needs to be.
+     * @param sink sink to adapt.
+     * @param format format the mixer writes in.
+     * @param resamplerFactory factory of the resampler used when the sample rates differ.
+     * @return the sink itself if its format matches, an adapter feeding it otherwise.
+     */
+    public static MixerSink adapt(MixerSink sink, AudioFormat format, ResamplerFactory resamplerFactory) {
+        AudioFormat sinkFormat = sink.getAudioFormat();
+        if (sinkFormat.getSampleRate() == format.getSampleRate() && sinkFormat.getChannels() == format.getChannels())
+            return sink;
+
+        return new AdaptedMixerSink(sink, format, resamplerFactory);
+    }
+
+    /**
+     * Gets the sink this sink feeds.
+     * @return wrapped sink.
+     */
+    public MixerSink getSink() {
+        return sink;
+    }
+
+    @Override
+    public String getName() {
+        return "Adapted" + sink.getName();
+    }
+
+    @Override
+    public AudioFormat getAudioFormat() {
+        return format;
+    }
+
+    @Override
+    public boolean isCritical() {
+        return sink.isCritical();
+    }
+
+    @Override
+    public void write(float[] buffer, int len) {
+        if (len % inChannels != 0) throw new IllegalArgumentException("not a full frame");
+
+        synchronized (lock) {
+            position += len;
+
+            float[] samples = buffer;
+            int frames = len / inChannels;
+
+            if (outChannels < inChannels) {
+                downmixed = ensure(downmixed, frames * outChannels);
+                convertChannels(samples, inChannels, downmixed, outChannels, frames);
+                samples = downmixed;
+            }
+
+            len = frames * resampleChannels;
+            if (resampler != null) {
+                len = resample(samples, len);
+                samples = resampled;
+            }
+
+            if (outChannels > inChannels) {
+                frames = len / inChannels;
+                upmixed = ensure(upmixed, frames * outChannels);
+                convertChannels(samples, inChannels, upmixed, outChannels, frames);
+                samples = upmixed;
+                len = frames * outChannels;
+            }
+
+            // Anything the sink has no room left for is lost
+            int written = pending.write(samples, 0, len);
+            if (written < len) {
+                dropped += len - written;
+                drops ++;
+            }
+
+            flush();
+        }
+    }
+
+    /**
+     * Passes as much of the converted samples on to the sink as it will take.
+     */
+    private void flush() {
+        if (!sink.isRunning()) return;
+
+        int len = Math.min(pending.availableOutput(), sink.availableInput());
+        len -= len % outChannels;
+        if (len <= 0) return;
+
+        chunk = ensure(chunk, len);
+        pending.read(chunk, 0, len);
+        sink.write(chunk, len);
+    }
+
+    private int resample(float[] samples, int len) {
+        int capacity = (int) Math.ceil((len / resampleChannels) * rateRatio) + 1024;
+        resampled = ensure(resampled, capacity * resampleChannels);
+
+        resampleInput = samples;
+        resampleOffset = 0;
+        resampledLength = 0;
+
+        while (resampleOffset < len) {
+            int offset = resampleOffset;
+
+            // The resampler limits its output in frames
+            resampler.resample(this::takeInput, len - resampleOffset, this::giveOutput,
+                    (resampled.length - resampledLength) / resampleChannels);
+
+            if (resampleOffset == offset) break;
+        }
+
+        resampleInput = null;
+        return resampledLength;
+    }
+
+    private int takeInput(FloatBuffer buffer, int len) {
+        buffer.put(resampleInput, resampleOffset, len);
+        resampleOffset += len;
+        return len;
+    }
+
+    private int giveOutput(FloatBuffer buffer, int len) {
+        int n = Math.min(len, resampled.length - resampledLength);
+        buffer.get(resampled, resampledLength, n);
+        resampledLength += n;
+
+        if (n < len) {
+            dropped += len - n;
+            drops ++;
+        }
+
+        return n;
+    }
+
+    private static float[] ensure(float[] buffer, int len) {
+        return buffer.length >= len ? buffer : new float[len];
+    }
+
+    private static void convertChannels(float[] in, int inChannels, float[] out, int outChannels, int frames) {
+        if (inChannels > outChannels) {
+            for (int frame = 0; frame < frames; frame ++) {
+                int i = frame * inChannels, o = frame * outChannels;
+
+                for (int ch = 0; ch < outChannels; ch ++) {
+                    float sum = 0f;
+                    int count = 0;
+                    for (int source = ch; source < inChannels; source += outChannels, count ++)
+                        sum += in[i + source];
+
+                    out[o + ch] = sum / count;
+                }
+            }
+        } else {
+            for (int frame = 0; frame < frames; frame ++) {
+                int i = frame * inChannels, o = frame * outChannels;
+
+                for (int ch = 0; ch < outChannels; ch ++)
+                    out[o + ch] = in[i + (ch % inChannels)];
+            }
+        }
+    }
+
+    /**
+     * Converts a sample count on the sink's side into whole frames on the mixer's side.
+     */
+    private int toInput(int samples) {
+        if (samples <= 0) return 0;
+
+        int frames = (int) Math.floor((samples / outChannels) / rateRatio);
+        return frames * inChannels;
+    }
+
+    /**
+     * Gets the samples the mixer may write.  Also moves any converted samples the sink has since made room for along,
+     * so call from the processing thread only.
+     */
+    @Override
+    public int availableInput() {
+        synchronized (lock) {
+            flush();
+
+            if (!sink.isRunning()) return 0;
+            return toInput(sink.availableInput() - pending.availableOutput());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return sink.isRunning();
+    }
+
+    @Override
+    public boolean start() {
+        // Anything left over from before the sink was stopped is stale
+        synchronized (lock) {
+            int len = pending.availableOutput();
+            chunk = ensure(chunk, len);
+            pending.read(chunk, 0, len);
+        }
+
+        return sink.start();
+    }
+
+    @Override
+    public boolean stop() {
+        return sink.stop();
+    }
+
+    @Override
+    public void setDemandListener(Runnable listener) {
+        sink.setDemandListener(listener);
+    }
+
+    @Override
+    public boolean isSignallingDemand() {
+        return sink.isSignallingDemand();
+    }
+
+    @Override
+    public int getBufferSize() {
+        return toInput(sink.getBufferSize());
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public long getUnderflows() {
+        return sink.getUnderflows();
+    }
+
+    @Override
+    public long getOverflows() {
+        return sink.getOverflows() + drops;
+    }
+
+    /**
+     * Gets the total samples (on the sink's side) dropped because the sink had no room for them.
+     * @return dropped samples.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public void close() {
+        sink.close();
+
+        if (resampler != null) {
+            try {
+                resampler.close();
+            } catch (Exception e) {
+                Logger.getGlobal().log(Level.WARNING, "Problem closing resampler for " + sink.getName(), e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Adapted[" + (int) format.getSampleRate() + "/" + inChannels + "->" +
+                (int) sink.getAudioFormat().getSampleRate() + "/" + outChannels + "]{" + sink.toString() + "}";
+    }
+}
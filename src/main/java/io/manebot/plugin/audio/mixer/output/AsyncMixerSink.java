@@ -0,0 +1,453 @@
+package io.manebot.plugin.audio.mixer.output;
+
+import io.manebot.virtual.Virtual;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decouples a sink from its mixer: the mixer's frames are queued here, and a writer thread of this sink's own feeds
+ * the wrapped sink from the queue, at whatever pace that sink accepts samples.  A sink that blocks (e.g. a Java line)
+ * or backs up (e.g. a full Opus queue) then only delays itself.
+ *
+ * Frames published by the mixer are retained rather than copied, and handed to the wrapped sink whole where it can
+ * take them; only plain sample arrays are copied (into frames of this sink's own pool).
+ *
+ * Unless marked critical, this sink never holds back its mixer; when the queue is full, samples are dropped according
+ * to its {@link OverflowPolicy}.  Lag (samples waiting in the queue) and drops are counted.
+ */
+public class AsyncMixerSink implements MixerSink {
+    private final Object lock = new Object();
+
+    private final MixerSink sink;
+    private final OverflowPolicy policy;
+    private final boolean critical;
+    private final int channels;
+    private final int capacity; // Most samples queued at once
+
+    private final AudioFramePool pool = new AudioFramePool();
+    private final float[] chunk;
+
+    // Queued frames, oldest first, each from an offset and for a length of its samples; guarded by lock
+    private AudioFrame[] frames = new AudioFrame[16];
+    private int[] offsets = new int[16], lengths = new int[16];
+    private int first = 0, count = 0;
+    private int queued = 0; // Samples in the queue
+    private int writing = 0; // Samples the writer thread has taken but not yet written
+    private int generation = 0; // Identifies the current writer thread across stop/start
+
+    private volatile boolean running = false;
+    private volatile Runnable demandListener;
+
+    private volatile long dropped = 0L, drops = 0L, maximumLag = 0L;
+    private long position = 0L;
+
+    /**
+     * Creates a new asynchronous sink.
+     * @param sink sink to feed.
+     * @param bufferSize most samples to queue; rounded down to whole frames.
+     * @param policy what to drop when the queue is full.
+     * @param critical true if the mixer should wait for this sink, rather than dropping samples when it falls behind.
+     */
+    public AsyncMixerSink(MixerSink sink, int bufferSize, OverflowPolicy policy, boolean critical) {
+        this.sink = sink;
+        this.policy = policy;
+        this.critical = critical;
+        this.channels = sink.getAudioFormat().getChannels();
+
+        int frames = bufferSize / channels;
+        if (frames <= 0) throw new IllegalArgumentException("invalid bufferSize: " + bufferSize);
+
+        this.capacity = frames * channels;
+        this.chunk = new float[Math.max(channels, Math.min(capacity, sink.getBufferSize()))];
+    }
+
+    public AsyncMixerSink(MixerSink sink, int bufferSize) {
+        this(sink, bufferSize, OverflowPolicy.DROP_OLDEST, false);
+    }
+
+    /**
+     * Gets the sink this sink feeds.
+     * @return wrapped sink.
+     */
+    public MixerSink getSink() {
+        return sink;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public String getName() {
+        return "Async" + sink.getName();
+    }
+
+    @Override
+    public AudioFormat getAudioFormat() {
+        return sink.getAudioFormat();
+    }
+
+    @Override
+    public boolean isCritical() {
+        return critical;
+    }
+
+    @Override
+    public void write(float[] buffer, int len) {
+        if (!running) throw new IllegalStateException("not running");
+        if (len % channels != 0) throw new IllegalArgumentException("not a full frame");
+
+        AudioFrame frame = pool.acquire(len);
+        try {
+            System.arraycopy(buffer, 0, frame.getSamples(), 0, len);
+            enqueue(frame);
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Override
+    public void write(AudioFrame frame) {
+        if (!running) throw new IllegalStateException("not running");
+        if (frame.getLength() % channels != 0) throw new IllegalArgumentException("not a full frame");
+
+        enqueue(frame);
+    }
+
+    /**
+     * Queues a frame, retaining it, and making room according to the overflow policy.
+     */
+    private void enqueue(AudioFrame frame) {
+        int offs = 0, len = frame.getLength();
+
+        synchronized (lock) {
+            int free = capacity - (queued + writing);
+
+            if (len > free) {
+                if (policy == OverflowPolicy.DROP_NEWEST) {
+                    // Keep what is queued; lose the tail end of this frame
+                    dropped += len - free;
+                    len = free;
+                } else {
+                    // Make room by dropping the oldest queued samples; anything beyond what fits even then is lost as
+                    // well.  Samples the writer thread has already taken still get played, so they don't count.
+                    dropped += dropOldest(len - free);
+
+                    free = capacity - (queued + writing);
+                    if (len > free) {
+                        offs = len - free;
+                        len = free;
+                        dropped += offs;
+                    }
+                }
+
+                drops ++;
+            }
+
+            if (len > 0) push(frame.retain(), offs, len);
+
+            position += len;
+
+            long lag = queued + writing;
+            if (lag > maximumLag) maximumLag = lag;
+
+            lock.notifyAll();
+        }
+    }
+
+    private void push(AudioFrame frame, int offs, int len) {
+        if (count == frames.length) {
+            // Grow, unrolling the queue to the start of the new arrays
+            AudioFrame[] frames = new AudioFrame[count * 2];
+            int[] offsets = new int[count * 2], lengths = new int[count * 2];
+
+            for (int i = 0; i < count; i ++) {
+                int index = (first + i) % this.frames.length;
+                frames[i] = this.frames[index];
+                offsets[i] = this.offsets[index];
+                lengths[i] = this.lengths[index];
+            }
+
+            this.frames = frames;
+            this.offsets = offsets;
+            this.lengths = lengths;
+            first = 0;
+        }
+
+        int index = (first + count) % frames.length;
+        frames[index] = frame;
+        offsets[index] = offs;
+        lengths[index] = len;
+        count ++;
+        queued += len;
+    }
+
+    /**
+     * Takes the oldest frame off the queue; the caller takes over its reference.
+     */
+    private AudioFrame pop() {
+        AudioFrame frame = frames[first];
+        queued -= lengths[first];
+        frames[first] = null;
+        first = (first + 1) % frames.length;
+        count --;
+        return frame;
+    }
+
+    /**
+     * Drops up to the given count of the oldest queued samples.
+     * @return samples dropped.
+     */
+    private int dropOldest(int samples) {
+        int dropped = 0;
+
+        while (dropped < samples && count > 0) {
+            int n = Math.min(samples - dropped, lengths[first]);
+
+            if (n == lengths[first]) {
+                pop().release();
+            } else {
+                offsets[first] += n;
+                lengths[first] -= n;
+                queued -= n;
+            }
+
+            dropped += n;
+        }
+
+        return dropped;
+    }
+
+    private void clear() {
+        while (count > 0) pop().release();
+    }
+
+    @Override
+    public int availableInput() {
+        if (!running) return 0;
+
+        synchronized (lock) {
+            return capacity - (queued + writing);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void setDemandListener(Runnable listener) {
+        this.demandListener = listener;
+    }
+
+    @Override
+    public boolean isSignallingDemand() {
+        return true;
+    }
+
+    @Override
+    public boolean start() {
+        int generation;
+
+        synchronized (lock) {
+            if (running) return false;
+
+            clear();
+            writing = 0;
+            running = true;
+            generation = ++ this.generation;
+        }
+
+        sink.start();
+
+        // Wake the writer as the wrapped sink drains, if it can tell us
+        sink.setDemandListener(() -> {
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        });
+
+        Virtual.getInstance().create(() -> drain(generation)).start();
+
+        Runnable listener = this.demandListener;
+        if (listener != null) listener.run();
+
+        return true;
+    }
+
+    @Override
+    public boolean stop() {
+        synchronized (lock) {
+            if (!running) return false;
+
+            running = false;
+            clear();
+            lock.notifyAll();
+        }
+
+        return true;
+    }
+
+    /**
+     * Writer thread: feeds the wrapped sink from the queue until this sink is stopped, then stops the wrapped sink.
+     */
+    private void drain(int generation) {
+        Virtual.getInstance().currentProcess().setDescription("AsyncMixerSink:" + sink.getName());
+
+        try {
+            while (true) {
+                int len;
+                AudioFrame frame = null;
+
+                synchronized (lock) {
+                    if (!running || this.generation != generation) break;
+
+                    int available = sink.isRunning() ? sink.availableInput() : 0;
+
+                    if (count > 0 && offsets[first] == 0 && lengths[first] == frames[first].getLength() &&
+                            lengths[first] <= available) {
+                        // A whole frame the sink can take: hand it over as it is
+                        len = lengths[first];
+                        frame = pop();
+                    } else {
+                        len = count > 0 ? Math.min(Math.min(lengths[first], chunk.length), available) : 0;
+                        len -= len % channels;
+
+                        // Hand over whole blocks when there are any, so the wrapped sink needn't stage partial ones
+                        int block = sink.getBlockSize();
+                        if (len >= block) len -= len % block;
+
+                        if (len <= 0) {
+                            // Nothing queued, or the sink can't take anything yet; sinks that don't signal demand are
+                            // checked again shortly
+                            lock.wait(queued > 0 && !sink.isSignallingDemand() ? 2L : 20L);
+                            continue;
+                        }
+
+                        System.arraycopy(frames[first].getSamples(), offsets[first], chunk, 0, len);
+
+                        if (len == lengths[first]) {
+                            pop().release();
+                        } else {
+                            offsets[first] += len;
+                            lengths[first] -= len;
+                            queued -= len;
+                        }
+                    }
+
+                    writing = len;
+                }
+
+                // May block; the mixer is free to keep queueing (and dropping) frames in the meantime
+                try {
+                    if (frame != null) sink.write(frame);
+                    else sink.write(chunk, len);
+                } finally {
+                    if (frame != null) frame.release();
+                }
+
+                boolean low;
+                synchronized (lock) {
+                    if (this.generation == generation) writing = 0;
+                    low = queued < capacity / 2;
+                }
+
+                Runnable listener = this.demandListener;
+                if (low && listener != null) listener.run();
+            }
+        } catch (InterruptedException ex) {
+            Logger.getGlobal().log(Level.FINE, "AsyncMixerSink writer was interrupted", ex);
+        } catch (RuntimeException ex) {
+            Logger.getGlobal().log(Level.SEVERE, "Problem writing to " + sink.getName() + "; stopping", ex);
+
+            synchronized (lock) {
+                if (this.generation == generation) running = false;
+            }
+        } finally {
+            // If this sink was restarted in the meantime, the wrapped sink belongs to the new writer
+            synchronized (lock) {
+                if (this.generation == generation) {
+                    sink.setDemandListener(null);
+                    sink.stop();
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getBlockSize() {
+        return sink.getBlockSize();
+    }
+
+    @Override
+    public int getBufferSize() {
+        return capacity;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public long getUnderflows() {
+        return sink.getUnderflows();
+    }
+
+    @Override
+    public long getOverflows() {
+        return drops;
+    }
+
+    /**
+     * Gets the samples waiting to be written to the wrapped sink.
+     * @return lag, in samples.
+     */
+    public int getLag() {
+        synchronized (lock) {
+            return queued + writing;
+        }
+    }
+
+    /**
+     * Gets the most samples that have been waiting at once.
+     * @return maximum lag, in samples.
+     */
+    public long getMaximumLag() {
+        return maximumLag;
+    }
+
+    /**
+     * Gets the total samples dropped because the queue was full.
+     * @return dropped samples.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public void close() {
+        stop();
+        sink.close();
+    }
+
+    @Override
+    public String toString() {
+        return "Async[" + capacity + ",lag=" + getLag() + ",dropped=" + dropped + "]{" + sink.toString() + "}";
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Samples written when the queue is full are discarded; what is already queued plays out.
+         */
+        DROP_NEWEST,
+
+        /**
+         * The oldest queued samples are discarded to make room, keeping lag within the queue size.
+         */
+        DROP_OLDEST
+    }
+}
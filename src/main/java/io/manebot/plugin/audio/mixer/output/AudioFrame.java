@@ -0,0 +1,77 @@
+package io.manebot.plugin.audio.mixer.output;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A block of interleaved samples published by a mixer to its sinks, drawn from an {@link AudioFramePool}.
+ *
+ * Frames are reference counted: whoever holds a reference releases it when done, and the frame goes back to its pool
+ * when the last reference is released.  A sink that needs the samples after {@link MixerSink#write(AudioFrame)}
+ * returns retains the frame instead of copying it.  Once published, the samples must not be modified.
+ */
+public final class AudioFrame {
+    private final AudioFramePool pool;
+    private final float[] samples;
+    private final AtomicInteger references = new AtomicInteger(0);
+
+    private volatile int length;
+
+    AudioFrame(AudioFramePool pool, int capacity) {
+        this.pool = pool;
+        this.samples = new float[capacity];
+    }
+
+    /**
+     * Takes the frame out of its pool, holding the first reference.
+     */
+    void acquire(int length) {
+        if (!references.compareAndSet(0, 1)) throw new IllegalStateException("frame in use");
+        this.length = length;
+    }
+
+    /**
+     * Gets the samples of this frame, from the start of the array; only the first {@link #getLength()} are valid.
+     * @return samples.
+     */
+    public float[] getSamples() {
+        return samples;
+    }
+
+    /**
+     * Gets the count of valid samples in this frame.
+     * @return length, in samples.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    public int getCapacity() {
+        return samples.length;
+    }
+
+    /**
+     * Takes another reference to this frame.
+     * @return this frame.
+     */
+    public AudioFrame retain() {
+        while (true) {
+            int references = this.references.get();
+            if (references <= 0) throw new IllegalStateException("frame released");
+            if (this.references.compareAndSet(references, references + 1)) return this;
+        }
+    }
+
+    /**
+     * Releases a reference to this frame, returning it to its pool if it was the last one.
+     */
+    public void release() {
+        int references = this.references.decrementAndGet();
+        if (references == 0) pool.recycle(this);
+        else if (references < 0) throw new IllegalStateException("frame released too often");
+    }
+
+    @Override
+    public String toString() {
+        return "AudioFrame[" + length + "/" + samples.length + ",refs=" + references.get() + "]";
+    }
+}
@@ -0,0 +1,84 @@
+package io.manebot.plugin.audio.mixer.output;
+
+import java.util.ArrayDeque;
+
+/**
+ * A pool of {@link AudioFrame}s.  Frames are kept by capacity, rounded up to a power of two, so that blocks of
+ * varying length reuse the same frames; once as many frames as are in flight at once have been allocated, acquiring
+ * and releasing frames allocates nothing.
+ */
+public class AudioFramePool {
+    private static final int maximumPooled = 256; // Per capacity; frames released beyond that are left to the GC
+
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<AudioFrame>[] pools = new ArrayDeque[31];
+
+    private volatile long allocated = 0L, acquired = 0L;
+
+    public AudioFramePool() {
+        for (int i = 0; i < pools.length; i ++)
+            pools[i] = new ArrayDeque<>();
+    }
+
+    private static int bucket(int length) {
+        return length <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(length - 1);
+    }
+
+    /**
+     * Acquires a frame, holding its first reference.
+     * @param length samples the frame is to hold.
+     * @return frame; its samples are not cleared.
+     */
+    public AudioFrame acquire(int length) {
+        if (length < 0) throw new IllegalArgumentException("length < 0");
+
+        int bucket = bucket(length);
+        ArrayDeque<AudioFrame> pool = pools[bucket];
+        AudioFrame frame;
+
+        synchronized (pool) {
+            frame = pool.pollFirst();
+            acquired ++;
+        }
+
+        if (frame == null) {
+            frame = new AudioFrame(this, 1 << bucket);
+            allocated ++;
+        }
+
+        frame.acquire(length);
+        return frame;
+    }
+
+    /**
+     * Returns a frame to the pool, once its last reference is released.
+     */
+    void recycle(AudioFrame frame) {
+        ArrayDeque<AudioFrame> pool = pools[bucket(frame.getCapacity())];
+
+        synchronized (pool) {
+            if (pool.size() < maximumPooled) pool.addFirst(frame);
+        }
+    }
+
+    /**
+     * Gets the total frames this pool has had to allocate.
+     * @return allocated frames.
+     */
+    public long getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * Gets the total frames acquired from this pool.
+     * @return acquired frames.
+     */
+    public long getAcquired() {
+        return acquired;
+    }
+
+    @Override
+    public String toString() {
+        return acquired + " frame(s) acquired, " + allocated + " allocated";
+    }
+}
@@ -1,5 +1,6 @@
 package io.manebot.plugin.audio.mixer.output;
 
+import io.manebot.plugin.audio.resample.Dither;
 import io.manebot.plugin.audio.resample.SampleConvert;
 
 import javax.sound.sampled.AudioFormat;
@@ -8,12 +9,16 @@ import javax.sound.sampled.SourceDataLine;
 
 /**
  * PCM-based mixer sink.  Sinks to a SourceDataLine.
+ *
+ * 16 and 24-bit output is dithered (TPDF) as it is converted, optionally with noise shaping.
  */
 public class JavaMixerSink implements MixerSink {
     private final SourceDataLine dataLine;
     private final byte[] nativeBuffer;
     private final int bufferSize;
     private final int sampleLen;
+    private final int channels;
+    private final Dither dither;
 
     private long position = 0L;
     private long clipped = 0L;
@@ -26,6 +31,17 @@ public class JavaMixerSink implements MixerSink {
     }
 
     public JavaMixerSink(SourceDataLine dataLine, int bufferSize) {
+        this(dataLine, bufferSize, true, false);
+    }
+
+    /**
+     * Creates a new Java mixer sink.
+     * @param dataLine line to write to.
+     * @param bufferSize buffer size, in samples.
+     * @param dither true to dither 16 and 24-bit output as it is quantized.
+     * @param noiseShaping true to shape the dither's quantization noise (first-order), if dithering.
+     */
+    public JavaMixerSink(SourceDataLine dataLine, int bufferSize, boolean dither, boolean noiseShaping) {
         if (dataLine.getFormat().getEncoding() != AudioFormat.Encoding.PCM_SIGNED)
             throw new IllegalArgumentException("sample encoding must be PCM_SIGNED");
 
@@ -34,37 +50,65 @@ public class JavaMixerSink implements MixerSink {
 
         this.dataLine = dataLine;
         this.sampleLen = (dataLine.getFormat().getSampleSizeInBits() / 8);
+        this.channels = dataLine.getFormat().getChannels();
 
         // Calculate buffer and its size
         this.bufferSize = bufferSize*sampleLen;
         this.nativeBuffer = new byte[this.bufferSize];
 
-        switch (dataLine.getFormat().getSampleSizeInBits()) {
+        // Only 16 and 24-bit output is dithered; 8-bit output is too coarse to benefit, and 32-bit is beyond float
+        int bits = dataLine.getFormat().getSampleSizeInBits();
+        if (dither && (bits == 16 || bits == 24))
+            this.dither = new Dither(bits, channels, noiseShaping);
+        else
+            this.dither = null;
+
+        switch (bits) {
             case 8:
-                writer = (b, offs, smp) -> b[offs] = (byte) (Byte.MIN_VALUE + (smp * (Byte.MAX_VALUE - Byte.MIN_VALUE)));
+                writer = (b, offs, smp, ch) -> b[offs] = (byte) (Byte.MIN_VALUE + (smp * (Byte.MAX_VALUE - Byte.MIN_VALUE)));
                 break;
             case 16:
-                writer = (b, offs, smp) -> {
-                    SampleConvert.intToBytes16_optimized_LE(
-                            SampleConvert.floatToShort(smp),
-                            nativeBuffer,
-                            offs
-                    );
-                };
+                if (this.dither != null) {
+                    writer = (b, offs, smp, ch) -> {
+                        SampleConvert.intToBytes16_optimized_LE(
+                                this.dither.quantize(smp, ch),
+                                nativeBuffer,
+                                offs
+                        );
+                    };
+                } else {
+                    writer = (b, offs, smp, ch) -> {
+                        SampleConvert.intToBytes16_optimized_LE(
+                                SampleConvert.floatToShort(smp),
+                                nativeBuffer,
+                                offs
+                        );
+                    };
+                }
 
                 break;
             case 24:
-                writer = (b, offs, smp) -> {
-                    SampleConvert.intToBytes24_optimized_LE(
-                            SampleConvert.floatToInt24(smp),
-                            nativeBuffer,
-                            offs
-                    );
-                };
+                if (this.dither != null) {
+                    writer = (b, offs, smp, ch) -> {
+                        SampleConvert.intToBytes24_optimized_LE(
+                                this.dither.quantize(smp, ch),
+                                nativeBuffer,
+                                offs
+                        );
+                    };
+                } else {
+                    writer = (b, offs, smp, ch) -> {
+                        SampleConvert.intToBytes24_optimized_LE(
+                                SampleConvert.floatToInt24(smp),
+                                nativeBuffer,
+                                offs
+                        );
+                    };
+                }
 
                 break;
             case 32:
-                writer = (b, offs, smp) -> {
+                writer = (b, offs, smp, ch) -> {
                     SampleConvert.intToBytes32_optimized_LE(
                             SampleConvert.floatToInt32(smp),
                             nativeBuffer,
@@ -78,6 +122,10 @@ public class JavaMixerSink implements MixerSink {
         }
     }
 
+    public boolean isDithering() {
+        return dither != null;
+    }
+
     @Override
     public AudioFormat getAudioFormat() {
         return dataLine.getFormat();
@@ -100,8 +148,8 @@ public class JavaMixerSink implements MixerSink {
 
         int samplesWritten = 0;
 
-        for (int i = 0; i < len; i ++) {
-            writer.write(nativeBuffer, i * sampleLen, buffer[i]);
+        for (int i = 0, ch = 0; i < len; i ++, ch = (ch + 1 == channels) ? 0 : ch + 1) {
+            writer.write(nativeBuffer, i * sampleLen, buffer[i], ch);
         }
 
         int availableSamples = availableInput();
@@ -140,6 +188,8 @@ public class JavaMixerSink implements MixerSink {
         dataLine.flush();
         dataLine.stop();
 
+        if (dither != null) dither.reset();
+
         return true;
     }
 
@@ -178,7 +228,7 @@ public class JavaMixerSink implements MixerSink {
     }
 
     private interface SinkWriter {
-        void write(byte[] b, int offs, float smp);
+        void write(byte[] b, int offs, float smp, int ch);
     }
 
 }
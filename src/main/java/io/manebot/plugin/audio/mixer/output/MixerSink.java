@@ -21,6 +21,16 @@ public interface MixerSink extends AudioConsumer {
      */
     void write(float[] buffer, int len);
 
+    /**
+     * Writes a frame published by the mixer to the sink.  The frame is only valid until this returns, unless the sink
+     * retains it ({@link AudioFrame#retain()}), in which case the sink releases it once it is done with the samples.
+     * By default, the frame's samples are written with {@link #write(float[], int)}.
+     * @param frame frame to write; its samples must not be modified.
+     */
+    default void write(AudioFrame frame) {
+        write(frame.getSamples(), frame.getLength());
+    }
+
     /**
      * Gets the total count of samples available for writing to.  Used by the mixer system to ensure not more than
      * the available sample count is flushed down the sink (CPU resource saver)
@@ -44,6 +54,15 @@ public interface MixerSink extends AudioConsumer {
      */
     boolean stop();
 
+    /**
+     * Gets the block size this sink consumes most efficiently, e.g. one codec frame.  Mixers render in multiples of
+     * the block sizes of their sinks where they can.
+     * @return block size, in samples (whole frames).
+     */
+    default int getBlockSize() {
+        return getAudioFormat().getChannels();
+    }
+
     /**
      * Gets the total buffer size of the sink in samples.
      * @return Buffer size.
@@ -71,6 +90,33 @@ public interface MixerSink extends AudioConsumer {
      */
     long getOverflows();
 
+    /**
+     * Finds if the mixer must wait for this sink.  Critical sinks pace the mixer: it renders no more than every
+     * critical sink can accept.  Non-critical sinks must accept any write (up to their buffer size) without blocking,
+     * dropping what they can't keep up with; when a mixer has no critical sinks, the fastest sink paces it.
+     * @return true if critical.
+     */
+    default boolean isCritical() {
+        return true;
+    }
+
+    /**
+     * Sets the listener called when the sink runs low on queued samples and wants its mixer to render more, driven by
+     * the sink's own output clock.  Sinks that never signal demand are serviced on the connection's loop timer.
+     * @param listener demand listener, or null to clear it.
+     */
+    default void setDemandListener(Runnable listener) {
+        // Not signalled by default
+    }
+
+    /**
+     * Finds if this sink signals demand to its listener (see {@link #setDemandListener(Runnable)}).
+     * @return true if demand is signalled, false if the sink must be polled.
+     */
+    default boolean isSignallingDemand() {
+        return false;
+    }
+
     /**
      * Closes the sink permanently.
      */
@@ -12,6 +12,11 @@ public class NativeMixerSink extends JavaMixerSink {
         super(AudioSystem.getSourceDataLine(format), bufferSize);
     }
 
+    public NativeMixerSink(AudioFormat format, int bufferSize, boolean dither, boolean noiseShaping)
+            throws LineUnavailableException {
+        super(AudioSystem.getSourceDataLine(format), bufferSize, dither, noiseShaping);
+    }
+
     public String toString() {
         return "Java";
     }
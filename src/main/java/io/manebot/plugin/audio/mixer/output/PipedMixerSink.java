@@ -37,6 +37,17 @@ public class PipedMixerSink implements MixerSink {
         position += ret;
     }
 
+    @Override
+    public void write(AudioFrame frame) {
+        // The pipe retains the frame; its samples are copied once, when the other end reads them
+        int len = frame.getLength(), ret = channel.write(frame);
+
+        if (ret <= 0) underflowed++;
+        else if (ret < len) overflowed++;
+
+        position += ret;
+    }
+
     @Override
     public int availableInput() {
         return getPipe().availableInput();
@@ -4,10 +4,20 @@ import io.manebot.virtual.Profiler;
 
 import javax.sound.sampled.AudioFormat;
 
+/**
+ * Keeps the most recent samples written to it.  Frames published by the mixer are retained rather than copied; the
+ * samples are only laid out in order when {@link #getBuffer()} is called.
+ */
 public class RingBufferSink implements MixerSink {
     private final Object stateLock = new Object();
     private final float[] buffer;
     private final AudioFormat format;
+    private final AudioFramePool pool = new AudioFramePool();
+
+    // Retained frames, oldest first, covering at least the last buffer.length samples; guarded by buffer
+    private AudioFrame[] frames = new AudioFrame[16];
+    private int first = 0, count = 0;
+    private int retained = 0; // Samples in the retained frames
 
     private boolean running;
     private long pos;
@@ -19,8 +29,26 @@ public class RingBufferSink implements MixerSink {
         this.buffer = new float[(int) Math.ceil(seconds * format.getSampleRate()) * format.getChannels()];
     }
 
+    /**
+     * Gets the most recent samples, oldest first and right-aligned; the array is refilled on every call.
+     * @return samples.
+     */
     public float[] getBuffer() {
-        return buffer;
+        synchronized (buffer) {
+            // Fill from the newest frame backwards; whatever no frame covers yet is silence
+            int end = buffer.length, n;
+
+            for (int i = count - 1; i >= 0 && end > 0; i --) {
+                AudioFrame frame = frames[(first + i) % frames.length];
+                n = Math.min(end, frame.getLength());
+                System.arraycopy(frame.getSamples(), frame.getLength() - n, buffer, end - n, n);
+                end -= n;
+            }
+
+            for (int i = 0; i < end; i ++) buffer[i] = 0f;
+
+            return buffer;
+        }
     }
 
     @Override
@@ -30,36 +58,67 @@ public class RingBufferSink implements MixerSink {
 
     @Override
     public void write(float[] buffer, int len) {
+        AudioFrame frame = pool.acquire(len);
+        try {
+            System.arraycopy(buffer, 0, frame.getSamples(), 0, len);
+            write(frame);
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Override
+    public void write(AudioFrame frame) {
         try (Profiler profiler = Profiler.region("ringwrite")) {
             synchronized (this.buffer) {
+                int len = frame.getLength();
+
                 if (len > buffer.length) {
+                    overflows++;
                     throw new ArrayIndexOutOfBoundsException("length > buffer size");
                 }
 
-                // Calculate how much to write
-                int write = Math.min(len, this.buffer.length);
+                push(frame.retain());
 
-                if (len > this.buffer.length)
-                    overflows++;
-
-                // Left shift current buffer to accommodate the new samples
-                int amount = this.buffer.length - write;
-                if (amount > 0)
-                    System.arraycopy(this.buffer, write, this.buffer, 0, amount);
-
-                // Copy buffer
-                System.arraycopy(
-                        buffer, 0,
-                        this.buffer, this.buffer.length - write, // copy to the right side of the ring buffer
-                        write // length
-                );
+                // Let go of the frames that have fallen out of the buffer entirely
+                while (count > 0 && retained - frames[first].getLength() >= buffer.length)
+                    pop().release();
 
                 // Offset position
-                this.pos += write;
+                this.pos += len;
             }
         }
     }
 
+    private void push(AudioFrame frame) {
+        if (count == frames.length) {
+            // Grow, unrolling the queue to the start of the new array
+            AudioFrame[] frames = new AudioFrame[count * 2];
+
+            for (int i = 0; i < count; i ++)
+                frames[i] = this.frames[(first + i) % this.frames.length];
+
+            this.frames = frames;
+            first = 0;
+        }
+
+        frames[(first + count) % frames.length] = frame;
+        count ++;
+        retained += frame.getLength();
+    }
+
+    /**
+     * Takes the oldest frame off the queue; the caller takes over its reference.
+     */
+    private AudioFrame pop() {
+        AudioFrame frame = frames[first];
+        retained -= frame.getLength();
+        frames[first] = null;
+        first = (first + 1) % frames.length;
+        count --;
+        return frame;
+    }
+
     @Override
     public int availableInput() {
         return running ? Integer.MAX_VALUE : 0;
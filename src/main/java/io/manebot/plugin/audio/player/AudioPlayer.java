@@ -2,6 +2,7 @@ package io.manebot.plugin.audio.player;
 
 import io.manebot.plugin.audio.mixer.input.AudioProvider;
 import io.manebot.plugin.audio.mixer.input.MixerChannel;
+import io.manebot.plugin.audio.mixer.input.UnderrunPolicy;
 import io.manebot.plugin.audio.resample.Resampler;
 import io.manebot.plugin.audio.resample.ResamplerFactory;
 import io.manebot.user.User;
@@ -20,6 +21,7 @@ public class AudioPlayer implements MixerChannel {
     private final CompletableFuture<AudioPlayer> future = new CompletableFuture<>();
 
     private boolean closed = false, eof = false;
+    private volatile UnderrunPolicy underrunPolicy = UnderrunPolicy.STRICT;
 
     public AudioPlayer(Type type, User owner, AudioProvider provider) {
         this.type = type;
@@ -84,6 +86,19 @@ public class AudioPlayer implements MixerChannel {
         return !eof;
     }
 
+    @Override
+    public UnderrunPolicy getUnderrunPolicy() {
+        return underrunPolicy;
+    }
+
+    /**
+     * Sets what the mixer does when this player can't keep up, e.g. when a network stream runs dry.
+     * @param underrunPolicy underrun policy.
+     */
+    public void setUnderrunPolicy(UnderrunPolicy underrunPolicy) {
+        this.underrunPolicy = underrunPolicy;
+    }
+
     /**
      * Stops the player softly.  In some implementations this may continuing playing samples (e.g. fade out.)
      *
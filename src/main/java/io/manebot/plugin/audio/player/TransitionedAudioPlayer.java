@@ -1,6 +1,7 @@
 package io.manebot.plugin.audio.player;
 
 import io.manebot.plugin.audio.mixer.input.AudioProvider;
+import io.manebot.plugin.audio.mixer.input.PrerolledAudioProvider;
 import io.manebot.plugin.audio.resample.Resampler;
 import io.manebot.plugin.audio.resample.ResamplerFactory;
 import io.manebot.property.Property;
@@ -9,12 +10,21 @@ import io.manebot.user.User;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class TransitionedAudioPlayer extends AudioPlayer {
     private static final double minimumVolume = 1d / Math.pow(2D, 32);
 
+    // Fades and volume changes are evaluated once per this many frames, and ramped linearly in between.
+    private static final int controlFrames = 64;
+
+    // Time taken to ramp to a new user volume, so volume changes don't click.
+    private static final double volumeRampTimeInSeconds = 0.02D;
+
     private final Callback callback;
 
     private long position = 0L;
@@ -24,6 +34,16 @@ public class TransitionedAudioPlayer extends AudioPlayer {
     private double durationInSeconds, transitionTimeInSeconds, closeTimeInSeconds = 0D;
 
     private final Property volumeProperty;
+    private final double transitionScale;
+
+    private volatile double targetVolume;
+    private double volume, volumeTarget, volumeStep = 0D;
+    private float gain = Float.NaN;
+
+    private volatile PrerolledAudioProvider next;
+    private Consumer<PrerolledAudioProvider> nextHandler; // Null to hand off to the callback
+    private double nextLeadTimeInSeconds;
+    private boolean nextPrerolling = false, nextHandedOff = false;
 
     public TransitionedAudioPlayer(Type type, User owner,
                                    AudioProvider provider,
@@ -37,8 +57,81 @@ public class TransitionedAudioPlayer extends AudioPlayer {
         this.durationInSeconds = durationInSeconds;
         this.transitionTimeInSeconds = transitionTimeInSeconds;
 
+        this.transitionScale = 1D / Math.sqrt(transitionTimeInSeconds);
+
         this.volumeProperty = getOwner().getEntity().getProperty("Mixer:Volume");
         this.volumeProperty.ensure(1D);
+        this.volume = this.volumeTarget = this.targetVolume = volumeProperty.getDouble();
+    }
+
+    /**
+     * Gets the volume multiplier this player is ramping towards.
+     * @return volume multiplier.
+     */
+    public double getVolume() {
+        return targetVolume;
+    }
+
+    /**
+     * Changes the volume of this player.  The change is ramped in over a short period to avoid clicks.
+     * @param volume volume multiplier.
+     */
+    public void setVolume(double volume) {
+        this.targetVolume = volume;
+    }
+
+    /**
+     * Re-reads the owner's volume property and ramps to it.  The property is not read by the audio thread, so
+     * callers changing the property should notify the player with this method (or setVolume).
+     */
+    public void refreshVolume() {
+        setVolume(volumeProperty.getDouble());
+    }
+
+    /**
+     * Registers the provider to be played after this player.
+     *
+     * The provider is opened and pre-decoded in the background while this player is still playing normally,
+     * <b>leadTimeInSeconds</b> before the fade-out begins.  Once the fade-out begins, it is handed to
+     * {@link Callback#onNext(PrerolledAudioProvider)} so that it can be placed on the mixer and overlap the transition.
+     *
+     * @param next provider to play next.
+     * @param leadTimeInSeconds time ahead of the fade-out to begin pre-rolling the next provider.
+     */
+    public void setNext(PrerolledAudioProvider next, double leadTimeInSeconds) {
+        setNext(next, leadTimeInSeconds, null);
+    }
+
+    /**
+     * Registers the provider to be played after this player, handing it to the given handler rather than the
+     * callback once the fade-out begins (see {@link io.manebot.plugin.audio.channel.AudioChannel#setNext}).
+     *
+     * @param next provider to play next.
+     * @param leadTimeInSeconds time ahead of the fade-out to begin pre-rolling the next provider.
+     * @param handler places the pre-rolled provider on the mixer, as {@link Callback#onNext(PrerolledAudioProvider)}
+     *                would; called on the same threads.  Null to use the callback.
+     */
+    public void setNext(PrerolledAudioProvider next, double leadTimeInSeconds,
+                        Consumer<PrerolledAudioProvider> handler) {
+        synchronized (this) {
+            if (state == State.FADE_OUT || state == State.CLOSED)
+                throw new IllegalStateException("player is already " + state.name());
+
+            if (this.next != null && this.next != next)
+                throw new IllegalStateException("next provider already set");
+
+            this.next = next;
+            this.nextHandler = handler;
+            this.nextLeadTimeInSeconds = leadTimeInSeconds;
+        }
+    }
+
+    /**
+     * Gets the provider registered to play after this player.
+     * @return next provider, or null if none was registered.
+     */
+    public PrerolledAudioProvider getNext() {
+        return next;
     }
 
     public boolean isBlocking() {
@@ -80,7 +173,7 @@ public class TransitionedAudioPlayer extends AudioPlayer {
         int read;
 
         try {
-            read = super.read(floats, 0, len);
+            read = super.read(floats, offs, len);
         } catch (EOFException ex) {
             try {
                 setState(State.CLOSED);
@@ -92,13 +185,30 @@ public class TransitionedAudioPlayer extends AudioPlayer {
         }
 
         try {
-            float volume;
-            for (int x = 0; x < read; x += getChannels()) {
-                volume = volumeAtPosition(position + x) * (float) volumeProperty.getDouble();
-                for (int ch = 0; ch < getChannels(); ch++)
-                    floats[offs + x + ch] *= volume;
+            int channels = getChannels();
+            int frames = read / channels;
+            float gain = this.gain, step;
+
+            if (Float.isNaN(gain))
+                gain = volumeAtPosition(position) * (float) nextVolume(0);
+
+            // Evaluate the fade and volume at control rate, ramping the gain linearly in between
+            for (int frame = 0, n; frame < frames; frame += n) {
+                n = Math.min(controlFrames, frames - frame);
+
+                float target = volumeAtPosition(position + ((frame + n) * channels)) * (float) nextVolume(n);
+                step = (target - gain) / n;
+
+                for (int i = offs + (frame * channels), end = i + (n * channels); i < end; i += channels) {
+                    gain += step;
+                    for (int ch = 0; ch < channels; ch++)
+                        floats[i + ch] *= gain;
+                }
+
+                gain = target;
             }
 
+            this.gain = gain;
             position += read;
         } catch (Exception ex) {
             throw new IOException(ex);
@@ -116,11 +226,16 @@ public class TransitionedAudioPlayer extends AudioPlayer {
             } else if (state == State.FADE_OUT) {
                 closeTimeInSeconds = Math.min(getTimeInSeconds(position), durationInSeconds - transitionTimeInSeconds);
                 callback.onFadeOut();
+                handOffNext();
             } else if (state == State.CLOSED) {
                 try {
                     super.close();
                 } finally {
-                    callback.onFinished(getTimeInSeconds(position));
+                    try {
+                        closeNext();
+                    } finally {
+                        callback.onFinished(getTimeInSeconds(position));
+                    }
                 }
             }
 
@@ -130,6 +245,79 @@ public class TransitionedAudioPlayer extends AudioPlayer {
         return false;
     }
 
+    private void prerollNext() {
+        PrerolledAudioProvider next = this.next;
+        if (next == null || nextPrerolling) return;
+
+        nextPrerolling = true;
+        next.preroll();
+    }
+
+    private void handOffNext() {
+        PrerolledAudioProvider next;
+        Consumer<PrerolledAudioProvider> handler;
+
+        synchronized (this) {
+            next = this.next;
+            if (next == null || nextHandedOff) return;
+            nextHandedOff = true;
+            handler = nextHandler;
+        }
+
+        BiConsumer<PrerolledAudioProvider, Throwable> handOff = (provider, throwable) -> {
+            try {
+                if (throwable != null) {
+                    Logger.getGlobal().log(Level.WARNING, "Problem pre-rolling next audio provider", throwable);
+                    next.close();
+                } else if (handler != null)
+                    handler.accept(provider);
+                else
+                    callback.onNext(provider);
+            } catch (Exception e) {
+                Logger.getGlobal().log(Level.WARNING, "Problem handing off next audio provider", e);
+            }
+        };
+
+        // Handed off right away if pre-rolling is done, so the next provider is on the mixer for the block after the
+        // fade-out begins.  Not on a render pool thread, though: it may not take the audio lock there (see
+        // BufferedMixer#setRenderPool).  Otherwise, it is handed off on the pre-roll executor once pre-rolled.
+        CompletableFuture<PrerolledAudioProvider> preroll = next.preroll();
+        if (preroll.isDone() && !ForkJoinTask.inForkJoinPool())
+            preroll.whenComplete(handOff);
+        else
+            preroll.whenCompleteAsync(handOff, next.getExecutor());
+    }
+
+    private void closeNext() throws Exception {
+        PrerolledAudioProvider next;
+
+        synchronized (this) {
+            next = this.next;
+            if (next == null || nextHandedOff) return;
+            nextHandedOff = true;
+        }
+
+        next.close();
+    }
+
+    private double nextVolume(int frames) {
+        double target = targetVolume;
+
+        if (target != volumeTarget) {
+            volumeTarget = target;
+            volumeStep = (target - volume) / (volumeRampTimeInSeconds * getSampleRate());
+        }
+
+        if (volume != target) {
+            volume += volumeStep * frames;
+
+            if ((volumeStep >= 0 && volume > target) || (volumeStep <= 0 && volume < target))
+                volume = target;
+        }
+
+        return volume;
+    }
+
     private double getTimeInSeconds(long position) {
         return (double)(position / getChannels()) / (double)getSampleRate();
     }
@@ -147,20 +335,22 @@ public class TransitionedAudioPlayer extends AudioPlayer {
                 setState(State.FADE_IN);
             case FADE_IN:
                 // Calculate fade in
-                f = (float)(Math.pow(timeInSeconds, 0.5d) / Math.pow(transitionTimeInSeconds, 0.5d));
+                f = (float)(Math.sqrt(timeInSeconds) * transitionScale);
 
                 if (shouldFadeOut || f >= 1f)
                     setState(State.NORMAL); // To normal
                 else
                     return Math.max(0f, Math.min(1f, f)); // Still fading in
             case NORMAL:
+                if (durationInSeconds - timeInSeconds <= transitionTimeInSeconds + nextLeadTimeInSeconds)
+                    prerollNext();
+
                 if (shouldFadeOut)
                     setState(State.FADE_OUT); // Now fading out (drop to next statement)
                 else
                     return 1f; // Still normal
             case FADE_OUT:
-                f = 1f - ((float)(Math.pow(timeInSeconds - closeTimeInSeconds, 0.5d) /
-                        Math.pow(transitionTimeInSeconds, 0.5d)));
+                f = 1f - (float)(Math.sqrt(timeInSeconds - closeTimeInSeconds) * transitionScale);
 
                 // Handle cancellation by finding if the audio is too quiet to be heard or
                 // if the track's normal/pre-determined length is exceeded.
@@ -169,7 +359,7 @@ public class TransitionedAudioPlayer extends AudioPlayer {
                 } else {
                     f= Math.max(0f, Math.min(1f, Math.min(
                             f,
-                            (float) (Math.pow(timeInSeconds, 0.5d) / (float) Math.pow(transitionTimeInSeconds, 0.5d))
+                            (float) (Math.sqrt(timeInSeconds) * transitionScale)
                     ))); // Still fading out
 
                     return f;
@@ -215,6 +405,19 @@ public class TransitionedAudioPlayer extends AudioPlayer {
         void onFadeIn();
         void onFadeOut();
         void onFinished(double timePlayedInSeconds);
+
+        /**
+         * Called once this player begins to fade out and the provider registered with
+         * {@link TransitionedAudioPlayer#setNext(PrerolledAudioProvider, double)} has been pre-rolled.  Implementors
+         * should place the provider on the mixer; by default, it is closed.  If pre-rolling was done in time, this is
+         * called on the thread reading this player as it begins to fade out (usually the audio thread), and must not
+         * block; otherwise it is called on the provider's pre-roll executor (see
+         * {@link PrerolledAudioProvider#getExecutor()}) once pre-rolling completes.
+         * @param next next provider.
+         */
+        default void onNext(PrerolledAudioProvider next) throws Exception {
+            next.close();
+        }
     }
 
     public enum State {
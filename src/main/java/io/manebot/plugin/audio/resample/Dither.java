@@ -0,0 +1,78 @@
+package io.manebot.plugin.audio.resample;
+
+/**
+ * Quantizes float samples to signed integer PCM with triangular (TPDF) dither, and optionally first-order noise
+ * shaping.
+ *
+ * The sample mapping is the same as {@link SampleConvert}'s (e.g. {@link SampleConvert#floatToShort(float)}).  Each
+ * instance has its own xorshift generator and error state, so it costs only a few cycles per sample and needs no
+ * synchronization; use one per sink.
+ */
+public final class Dither {
+    private final int min, max;
+    private final double scale, offset;
+    private final boolean noiseShaping;
+    private final double[] error; // previous quantization error, by channel
+
+    private int state;
+
+    /**
+     * Creates a new dither.
+     * @param bits output bit depth (2-31).
+     * @param channels channel count, for noise shaping state.
+     * @param noiseShaping true to shape the quantization noise (first-order, pushing it toward higher frequencies).
+     */
+    public Dither(int bits, int channels, boolean noiseShaping) {
+        if (bits < 2 || bits > 31) throw new IllegalArgumentException("bits");
+        if (channels <= 0) throw new IllegalArgumentException("channels <= 0");
+
+        this.min = -(1 << (bits - 1));
+        this.max = (1 << (bits - 1)) - 1;
+        this.scale = ((double) max - min) / 2D;
+        this.offset = min + scale;
+
+        this.noiseShaping = noiseShaping;
+        this.error = new double[channels];
+
+        this.state = (int) System.nanoTime() | 1; // xorshift state must never be zero
+    }
+
+    public boolean isNoiseShaping() {
+        return noiseShaping;
+    }
+
+    /**
+     * Quantizes a sample.
+     * @param sample sample to quantize, nominally -1 to 1.
+     * @param channel channel of the sample.
+     * @return quantized sample, clamped to the output range.
+     */
+    public int quantize(float sample, int channel) {
+        double u = (sample * scale) + offset;
+        if (noiseShaping) u -= error[channel];
+
+        // Triangular noise spanning +/-1 LSB: the sum of two uniform values taken from one xorshift32 step
+        int x = state;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        state = x;
+
+        double v = u + (((x & 0xFFFF) + (x >>> 16) - 0xFFFF) * (1D / 0x10000));
+
+        int y = (int) v;
+        if (y > v) y--; // floor
+
+        if (noiseShaping) error[channel] = y - u;
+
+        return y < min ? min : (y > max ? max : y);
+    }
+
+    /**
+     * Clears noise shaping state.
+     */
+    public void reset() {
+        for (int ch = 0; ch < error.length; ch ++)
+            error[ch] = 0D;
+    }
+}
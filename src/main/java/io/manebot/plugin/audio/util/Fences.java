@@ -0,0 +1,66 @@
+package io.manebot.plugin.audio.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Memory fences for lock-free code that validates plain reads after the fact (e.g. a seqlock: copy, then check that
+ * the writer didn't move underneath).  Volatile accesses alone don't order those plain accesses the right way round:
+ * a volatile write may be reordered with the plain writes after it, and a volatile read with the plain reads before
+ * it.
+ *
+ * Java 8 has no public API for this (VarHandle fences came in 9), so this uses sun.misc.Unsafe, as the JDK's own
+ * StampedLock does.  Where Unsafe isn't available, an empty synchronized block stands in, which is at least as
+ * strong on HotSpot.
+ */
+public final class Fences {
+    // Bound to the Unsafe instance; null when it isn't available
+    private static final MethodHandle storeFence = findFence("storeFence"), loadFence = findFence("loadFence");
+    private static final Object fallback = new Object();
+
+    private Fences() {
+    }
+
+    /**
+     * Keeps the stores before the fence from being reordered with the stores after it.
+     */
+    public static void storeFence() {
+        if (storeFence != null) invoke(storeFence);
+        else synchronized (fallback) { }
+    }
+
+    /**
+     * Keeps the loads before the fence from being reordered with the loads after it.
+     */
+    public static void loadFence() {
+        if (loadFence != null) invoke(loadFence);
+        else synchronized (fallback) { }
+    }
+
+    private static void invoke(MethodHandle fence) {
+        try {
+            fence.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle findFence(String name) {
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+
+            return MethodHandles.lookup()
+                    .findVirtual(type, name, MethodType.methodType(void.class))
+                    .bindTo(field.get(null));
+        } catch (Throwable e) {
+            Logger.getGlobal().log(Level.WARNING, "Unsafe." + name + " unavailable; using a lock as a memory fence", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.manebot.plugin.audio.util;
+
+/**
+ * Running statistics over a series of latency measurements.  Recorded from one thread, read from any.
+ */
+public class LatencyStatistics {
+    private volatile long count = 0L, total = 0L, last = 0L, maximum = 0L;
+
+    /**
+     * Records a measurement.
+     * @param nanos latency, in nanoseconds.
+     */
+    public void record(long nanos) {
+        last = nanos;
+        total += nanos;
+        if (nanos > maximum) maximum = nanos;
+        count ++;
+    }
+
+    /**
+     * Gets the number of measurements recorded.
+     * @return measurement count.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the most recent measurement.
+     * @return latency, in nanoseconds.
+     */
+    public long getLast() {
+        return last;
+    }
+
+    /**
+     * Gets the mean of all measurements.
+     * @return latency, in nanoseconds; 0 if nothing was recorded.
+     */
+    public long getAverage() {
+        long count = this.count;
+        return count > 0 ? total / count : 0L;
+    }
+
+    /**
+     * Gets the largest measurement.
+     * @return latency, in nanoseconds.
+     */
+    public long getMaximum() {
+        return maximum;
+    }
+
+    @Override
+    public String toString() {
+        if (count <= 0) return "(none)";
+
+        return String.format("last %.1fms, avg %.1fms, max %.1fms (%d)",
+                last / 1_000_000D, getAverage() / 1_000_000D, maximum / 1_000_000D, count);
+    }
+}
@@ -1,21 +1,61 @@
 package io.manebot.plugin.audio.util;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Logger;
 
 /**
  * A timer with drift protection.
+ *
+ * In {@link Mode#SPIN} mode the timer waits on its lock and then busy-spins until the wake-up time, which is accurate
+ * but keeps a core busy.  In {@link Mode#HYBRID} mode it parks the thread for most of the interval and spins only for
+ * a short tail, sized from how late parking has been observed to wake up; the caller must not hold any lock the timer
+ * is expected to release while sleeping.
+ *
+ * Wake-up lateness is recorded into a histogram (see {@link #getLatenessHistogram()}), along with the number of
+ * intervals overrun by the caller and the number of times the timer had to reset because it fell too far behind.
  */
 public class LoopTimer {
+    private static final long minimumSpinNanos = 20_000L;
+    private static final long maximumSpinNanos = 500_000L;
+    private static final int maximumBehindIntervals = 30;
+
+    /**
+     * Lateness histogram buckets; bucket 0 counts wake-ups less than 1us late, bucket n counts wake-ups from 2^(n-1)
+     * to 2^n us late, and the last bucket counts anything later than that.
+     */
+    public static final int latenessBuckets = 22;
+
     private final long interval;
     private final Object lock;
+    private final Mode mode;
     private long wake, time, wait;
 
-    public LoopTimer(long interval, Object lock) {
+    // Estimated park() overshoot, in nanoseconds
+    private long parkLateness = minimumSpinNanos / 2;
+
+    private final AtomicLongArray lateness = new AtomicLongArray(latenessBuckets);
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private volatile long maximumLateness = 0L;
+
+    public LoopTimer(long interval, Object lock, Mode mode) {
         this.interval = interval * 1_000_000;
         this.lock = lock;
+        this.mode = mode;
         this.time = wake = System.nanoTime();
     }
 
+    public LoopTimer(long interval, Object lock) {
+        this(interval, lock, Mode.SPIN);
+    }
+
+    public LoopTimer(long interval, Mode mode) {
+        this(interval, new Object(), mode);
+    }
+
     public LoopTimer(long interval) {
         this(interval, new Object());
     }
@@ -27,13 +67,17 @@ public class LoopTimer {
         // Find the time we need to wake up at
         wake += interval;
 
-        long maxDelay = time - (interval * 30);
+        // The caller took longer than an interval since the last wake-up
+        if (wake < time) overruns.incrementAndGet();
+
+        long maxDelay = time - (interval * maximumBehindIntervals);
         if (wake < maxDelay) {
             Logger.getGlobal().warning(
                     "LoopTimer falling behind: " + ((maxDelay - wake) / 1_000_000D)
                     + "ms behind; abruptly resetting timer..."
             );
 
+            resets.incrementAndGet();
             wake = time;
         }
 
@@ -41,11 +85,24 @@ public class LoopTimer {
         wait = (wake - time);
 
         // Wait until the specified time
-        sleepFor(wait);
+        if (mode == Mode.HYBRID)
+            parkFor(wait);
+        else
+            sleepFor(wait);
 
-        while (wake > System.nanoTime()) {
+        long now;
+        while (wake > (now = System.nanoTime())) {
             ; //consume cycles
         }
+
+        record(now - wake);
+    }
+
+    /**
+     * Restarts the timer from now, e.g. after the caller has been paced by something else for a while.
+     */
+    public synchronized void reset() {
+        time = wake = System.nanoTime();
     }
 
     private void sleepFor(long nanos) throws InterruptedException {
@@ -66,4 +123,124 @@ public class LoopTimer {
             }
         }
     }
+
+    /**
+     * Parks until the spin tail before the wake-up time, learning how late parking tends to wake up.
+     */
+    private void parkFor(long nanos) throws InterruptedException {
+        long spin = Math.max(minimumSpinNanos, Math.min(maximumSpinNanos, parkLateness * 2));
+        long deadline = wake - spin, remaining, late;
+
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) throw new InterruptedException();
+
+            // Calibrate on the overshoot past the deadline (early wake-ups say nothing about it)
+            late = System.nanoTime() - deadline;
+            if (late > 0) parkLateness += (late - parkLateness) / 8;
+        }
+    }
+
+    private void record(long nanos) {
+        long micros = nanos / 1_000L;
+        int bucket = micros <= 0 ? 0 : Math.min(latenessBuckets - 1, 64 - Long.numberOfLeadingZeros(micros));
+
+        lateness.incrementAndGet(bucket);
+        ticks.incrementAndGet();
+        if (nanos > maximumLateness) maximumLateness = nanos;
+    }
+
+    /**
+     * Gets the mode this timer sleeps in.
+     * @return mode.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Gets the interval of this timer.
+     * @return interval, in nanoseconds.
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Gets the current spin tail of the timer; 0 when not parking.
+     * @return spin tail, in nanoseconds.
+     */
+    public long getSpinNanos() {
+        return mode == Mode.HYBRID ? Math.max(minimumSpinNanos, Math.min(maximumSpinNanos, parkLateness * 2)) : 0L;
+    }
+
+    /**
+     * Gets a copy of the wake-up lateness histogram.
+     * @return counts by lateness bucket, see {@link #latenessBuckets}.
+     */
+    public long[] getLatenessHistogram() {
+        long[] histogram = new long[latenessBuckets];
+        for (int i = 0; i < histogram.length; i ++) histogram[i] = lateness.get(i);
+        return histogram;
+    }
+
+    /**
+     * Gets the latest wake-up observed.
+     * @return maximum lateness, in nanoseconds.
+     */
+    public long getMaximumLateness() {
+        return maximumLateness;
+    }
+
+    /**
+     * Gets the number of times this timer has slept.
+     * @return tick count.
+     */
+    public long getTicks() {
+        return ticks.get();
+    }
+
+    /**
+     * Gets the number of times the caller came back to sleep after the next wake-up time had already passed.
+     * @return overrun count.
+     */
+    public long getOverruns() {
+        return overruns.get();
+    }
+
+    /**
+     * Gets the number of times this timer fell too far behind and reset itself.
+     * @return reset count.
+     */
+    public long getResets() {
+        return resets.get();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(mode.name().toLowerCase())
+                .append(" interval=").append(interval / 1_000_000L).append("ms")
+                .append(" ticks=").append(getTicks())
+                .append(" overruns=").append(getOverruns())
+                .append(" resets=").append(getResets())
+                .append(" max=").append(maximumLateness / 1_000L).append("us");
+
+        if (mode == Mode.HYBRID)
+            builder.append(" spin=").append(getSpinNanos() / 1_000L).append("us");
+
+        return builder.toString();
+    }
+
+    public enum Mode {
+        /**
+         * Waits on the timer's lock, then busy-spins until the wake-up time.
+         */
+        SPIN,
+
+        /**
+         * Parks the thread, then busy-spins only for a calibrated tail before the wake-up time.
+         */
+        HYBRID
+    }
 }
@@ -0,0 +1,169 @@
+package io.manebot.plugin.audio.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks FastMath against java.lang.Math (in double precision) for the error bounds given in its class doc, and for
+ * the documented edge cases.
+ */
+public class FastMathTest {
+    private static final int SAMPLES = 200_000;
+    private static final double LOG2 = Math.log(2D);
+
+    private static double log2(double x) {
+        return Math.log(x) / LOG2;
+    }
+
+    private static float uniform(Random random, float min, float max) {
+        return min + (random.nextFloat() * (max - min));
+    }
+
+    @Test
+    public void log2WithinBound() {
+        Random random = new Random(1L);
+
+        for (int i = 0; i < SAMPLES; i ++) {
+            float x = (float) Math.pow(2D, uniform(random, -8f, 8f));
+            assertEquals("log2(" + x + ")", log2(x), FastMath.log2(x), 2.5e-6);
+        }
+
+        // Exact powers of two, including the ends of the range
+        for (int e = -8; e <= 8; e ++)
+            assertEquals("log2(2^" + e + ")", e, FastMath.log2((float) Math.pow(2D, e)), 2.5e-6);
+    }
+
+    @Test
+    public void log2OverNormalRange() {
+        Random random = new Random(2L);
+
+        for (int i = 0; i < SAMPLES; i ++) {
+            float x = (float) Math.pow(2D, uniform(random, -126f, 127f));
+            assertEquals("log2(" + x + ")", log2(x), FastMath.log2(x), 6e-6);
+        }
+    }
+
+    @Test
+    public void log2EdgeCases() {
+        assertEquals(-127f, FastMath.log2(0f), 1e-4f);
+        assertEquals(-127f, FastMath.log2(Float.MIN_VALUE), 1e-4f);
+        assertEquals(128f, FastMath.log2(Float.POSITIVE_INFINITY), 1e-4f);
+
+        // The sign is ignored
+        assertEquals(FastMath.log2(3f), FastMath.log2(-3f), 0f);
+        assertEquals(FastMath.log2(0.25f), FastMath.log2(-0.25f), 0f);
+    }
+
+    @Test
+    public void pow2WithinBound() {
+        Random random = new Random(3L);
+
+        for (int i = 0; i < SAMPLES; i ++) {
+            float x = uniform(random, -126f, 127f);
+            assertRelative("pow2(" + x + ")", Math.pow(2D, x), FastMath.pow2(x), 2e-7);
+        }
+
+        for (int e = -126; e <= 127; e ++)
+            assertRelative("pow2(" + e + ")", Math.pow(2D, e), FastMath.pow2(e), 2e-7);
+    }
+
+    @Test
+    public void pow2EdgeCases() {
+        assertEquals(1f, FastMath.pow2(0f), 2e-7f);
+        assertEquals(0f, FastMath.pow2(-127f), 0f);
+        assertEquals(0f, FastMath.pow2(Float.NEGATIVE_INFINITY), 0f);
+        assertEquals(Float.POSITIVE_INFINITY, FastMath.pow2(128f), 0f);
+        assertEquals(Float.POSITIVE_INFINITY, FastMath.pow2(Float.POSITIVE_INFINITY), 0f);
+        assertTrue(Float.isNaN(FastMath.pow2(Float.NaN)));
+    }
+
+    @Test
+    public void powWithinBound() {
+        Random random = new Random(4L);
+
+        for (int i = 0; i < SAMPLES; i ++) {
+            float x = (float) Math.pow(2D, uniform(random, -8f, 8f));
+            float y = uniform(random, -8f, 8f);
+            double bound = (2.5e-6 * Math.abs(y)) + (1e-7 * Math.abs(y * log2(x))) + 2e-7;
+
+            assertRelative("pow(" + x + ", " + y + ")", Math.pow(x, y), FastMath.pow(x, y), bound);
+        }
+    }
+
+    @Test
+    public void powEdgeCases() {
+        // Zero base follows Math.pow
+        assertEquals(Math.pow(0D, 0D), FastMath.pow(0f, 0f), 0f);
+        assertEquals(Math.pow(0D, 2D), FastMath.pow(0f, 2f), 0f);
+        assertEquals(Math.pow(0D, 0.5D), FastMath.pow(0f, 0.5f), 0f);
+        assertEquals(Float.POSITIVE_INFINITY, FastMath.pow(0f, -1f), 0f);
+
+        // Zero exponent
+        assertEquals(1f, FastMath.pow(5f, 0f), 2e-7f);
+        assertEquals(1f, FastMath.pow(0.1f, 0f), 2e-7f);
+
+        // The sign of the base is ignored
+        assertEquals(FastMath.pow(2f, 3f), FastMath.pow(-2f, 3f), 0f);
+
+        // Infinities
+        assertEquals(Float.POSITIVE_INFINITY, FastMath.pow(2f, Float.POSITIVE_INFINITY), 0f);
+        assertEquals(0f, FastMath.pow(2f, Float.NEGATIVE_INFINITY), 0f);
+        assertEquals(0f, FastMath.pow(0.5f, Float.POSITIVE_INFINITY), 0f);
+        assertEquals(Float.POSITIVE_INFINITY, FastMath.pow(0.5f, Float.NEGATIVE_INFINITY), 0f);
+        assertEquals(Float.POSITIVE_INFINITY, FastMath.pow(Float.POSITIVE_INFINITY, 1f), 0f);
+        assertEquals(0f, FastMath.pow(Float.POSITIVE_INFINITY, -1f), 0f);
+    }
+
+    @Test
+    public void dbToLinearWithinBound() {
+        Random random = new Random(5L);
+
+        for (int i = 0; i < SAMPLES; i ++) {
+            float db = uniform(random, -120f, 120f);
+            assertRelative("dbToLinear(" + db + ")", Math.pow(10D, db / 20D), FastMath.dbToLinear(db), 1e-6);
+        }
+    }
+
+    @Test
+    public void dbToLinearEdgeCases() {
+        assertEquals(1f, FastMath.dbToLinear(0f), 1e-6f);
+        assertEquals(0f, FastMath.dbToLinear(Float.NEGATIVE_INFINITY), 0f);
+        assertEquals(Float.POSITIVE_INFINITY, FastMath.dbToLinear(Float.POSITIVE_INFINITY), 0f);
+    }
+
+    @Test
+    public void linearToDbWithinBound() {
+        Random random = new Random(6L);
+
+        for (int i = 0; i < SAMPLES; i ++) {
+            float linear = (float) Math.pow(2D, uniform(random, -8f, 8f));
+            assertEquals("linearToDb(" + linear + ")", 20D * Math.log10(linear), FastMath.linearToDb(linear), 2e-5);
+        }
+    }
+
+    @Test
+    public void linearToDbEdgeCases() {
+        assertEquals(0f, FastMath.linearToDb(1f), 2e-5f);
+        assertEquals(-765f, FastMath.linearToDb(0f), 1f);
+        assertEquals(FastMath.linearToDb(0.5f), FastMath.linearToDb(-0.5f), 0f);
+    }
+
+    @Test
+    public void roundTrips() {
+        Random random = new Random(7L);
+
+        for (int i = 0; i < SAMPLES; i ++) {
+            float db = uniform(random, -48f, 48f);
+            assertEquals(db, FastMath.linearToDb(FastMath.dbToLinear(db)), 5e-5f);
+        }
+    }
+
+    private static void assertRelative(String message, double expected, float actual, double bound) {
+        double error = Math.abs((actual - expected) / expected);
+        assertTrue(message + ": expected " + expected + ", was " + actual + " (relative error " + error + ")",
+                error < bound);
+    }
+}